@@ -0,0 +1,109 @@
+package cn.imkarl.urlbuilder.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cn.imkarl.urlbuilder.UrlBatch;
+import cn.imkarl.urlbuilder.UrlBuilder;
+
+/**
+ * UrlBatch：按并行度比较批量生成的扩展性，以每行创建一个UrlBuilder为基准
+ * @version imkarl 2017-04
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BatchBenchmark {
+
+    private static final int ROWS = 100000;
+
+    private static final UrlBatch.Binder<Integer> BINDER = new UrlBatch.Binder<Integer>() {
+        @Override
+        public void bind(Integer row, UrlBatch.Row url) {
+            url.appendPath(String.valueOf(row % 100)).appendQuery("page", String.valueOf(row)).appendQuery("wd", "测试");
+        }
+    };
+
+    /** ForkJoinPool的并行度 */
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private List<Integer> rows;
+    private UrlBatch batch;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(i);
+        }
+        batch = UrlBuilder.batch(base());
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    private static UrlBuilder base() {
+        return new UrlBuilder().scheme("https").host("www.baidu.com").appendPath("/s").appendQuery("ie", "UTF-8").fragment("abc");
+    }
+
+    /**
+     * 只累计长度，不保留生成的URL
+     */
+    private static final class LengthSink implements UrlBatch.Sink {
+        final AtomicLong length = new AtomicLong();
+
+        @Override
+        public void accept(CharSequence url) {
+            length.addAndGet(url.length());
+        }
+    }
+
+    @Benchmark
+    public long parallelForEach() {
+        LengthSink sink = new LengthSink();
+        batch.parallelForEach(rows, BINDER, sink, pool);
+        return sink.length.get();
+    }
+
+    /**
+     * 单线程依次生成，与并行度无关
+     */
+    @Benchmark
+    public long forEach() {
+        LengthSink sink = new LengthSink();
+        batch.forEach(rows, BINDER, sink);
+        return sink.length.get();
+    }
+
+    /**
+     * 基准：每行创建一个UrlBuilder并完整编码
+     */
+    @Benchmark
+    public long baselineUrlBuilderPerRow() {
+        long length = 0;
+        for (Integer row : rows) {
+            length += base().appendPath(String.valueOf(row % 100)).appendQuery("page", String.valueOf(row))
+                    .appendQuery("wd", "测试").build().length();
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,81 @@
+package cn.imkarl.urlbuilder.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import cn.imkarl.urlbuilder.UrlBinaryCodec;
+import cn.imkarl.urlbuilder.UrlBuilder;
+
+/**
+ * 二进制格式与字符串形式的对比：encode/decode vs build/parse
+ * @version imkarl 2017-04
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BinaryBenchmark {
+
+    @Param({"SHORT", "TRACKING", "NON_ASCII", "HUGE_QUERY"})
+    public Corpus corpus;
+
+    private final UrlBinaryCodec codec = new UrlBinaryCodec();
+    private UrlBuilder[] builders;
+    private String[] strings;
+    private byte[][] binaries;
+    private ByteBuffer buffer;
+    private int index;
+
+    @Setup
+    public void setup() {
+        String[] urls = corpus.urls();
+        builders = new UrlBuilder[urls.length];
+        strings = new String[urls.length];
+        binaries = new byte[urls.length][];
+        int maxLength = 0;
+        for (int i = 0; i < urls.length; i++) {
+            builders[i] = UrlBuilder.parse(urls[i]);
+            strings[i] = builders[i].build();
+            binaries[i] = codec.encode(builders[i]);
+            maxLength = Math.max(maxLength, binaries[i].length);
+        }
+        buffer = ByteBuffer.allocate(maxLength);
+    }
+
+    private int next() {
+        int i = index;
+        index = (i + 1) % builders.length;
+        return i;
+    }
+
+    @Benchmark
+    public ByteBuffer write() {
+        buffer.clear();
+        codec.write(builders[next()], buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public UrlBuilder read() {
+        return codec.decode(binaries[next()]);
+    }
+
+    @Benchmark
+    public String baselineBuild() {
+        return builders[next()].build();
+    }
+
+    @Benchmark
+    public UrlBuilder baselineParse() {
+        return UrlBuilder.parse(strings[next()]);
+    }
+
+}
@@ -0,0 +1,110 @@
+package cn.imkarl.urlbuilder.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import cn.imkarl.urlbuilder.UrlBuilder;
+import cn.imkarl.urlbuilder.UrlFingerprint;
+
+/**
+ * 构建与转换：build、canonicalize、fingerprint、toURI、toURIString、toURL，以java.net.URI的多参数构造方法为基准
+ * @version imkarl 2017-04
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BuildBenchmark {
+
+    @Param({"SHORT", "TRACKING", "NON_ASCII", "HUGE_QUERY"})
+    public Corpus corpus;
+
+    private UrlBuilder[] builders;
+    private URI[] uris;
+    private int index;
+
+    @Setup
+    public void setup() {
+        String[] urls = corpus.urls();
+        builders = new UrlBuilder[urls.length];
+        uris = new URI[urls.length];
+        for (int i = 0; i < urls.length; i++) {
+            builders[i] = UrlBuilder.parse(urls[i]);
+            uris[i] = URI.create(builders[i].build());
+        }
+    }
+
+    private int next() {
+        int i = index;
+        index = (i + 1) % builders.length;
+        return i;
+    }
+
+    /**
+     * 重新设置fragment（值不变），使整个URL的结果缓存失效，path和query的编码缓存仍然有效，
+     * 对应“修改一处后再次构建”的场景
+     */
+    private UrlBuilder touched() {
+        UrlBuilder builder = builders[next()];
+        return builder.fragment(builder.getFragment());
+    }
+
+    @Benchmark
+    public String build() {
+        return touched().build();
+    }
+
+    @Benchmark
+    public String buildMemoized() {
+        return builders[next()].build();
+    }
+
+    @Benchmark
+    public String canonicalize() {
+        return builders[next()].canonicalize();
+    }
+
+    @Benchmark
+    public long fingerprint64() {
+        return builders[next()].fingerprint64();
+    }
+
+    @Benchmark
+    public long buildThenHash64() {
+        return UrlFingerprint.hash64(builders[next()].build());
+    }
+
+    @Benchmark
+    public URI toURI() {
+        return touched().toURI();
+    }
+
+    @Benchmark
+    public String toURIString() {
+        return touched().toURIString();
+    }
+
+    @Benchmark
+    public URL toURL() {
+        return touched().toURL();
+    }
+
+    @Benchmark
+    public String baselineURI() throws URISyntaxException {
+        // 由已解码的各组成部分重新构建，与build等价
+        URI uri = uris[next()];
+        return new URI(uri.getScheme(), uri.getUserInfo(), uri.getHost(), uri.getPort(),
+                uri.getPath(), uri.getQuery(), uri.getFragment()).toASCIIString();
+    }
+
+}
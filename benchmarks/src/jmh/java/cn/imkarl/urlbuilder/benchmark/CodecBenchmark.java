@@ -0,0 +1,88 @@
+package cn.imkarl.urlbuilder.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import cn.imkarl.urlbuilder.Part;
+import cn.imkarl.urlbuilder.UrlBuilder;
+import cn.imkarl.urlbuilder.UrlQuery;
+
+/**
+ * encode/decode，以URLEncoder/URLDecoder为基准
+ * @version imkarl 2017-04
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CodecBenchmark {
+
+    @Param({"SHORT", "TRACKING", "NON_ASCII"})
+    public Corpus corpus;
+
+    private String[] raw;
+    private String[] encoded;
+    private int index;
+
+    @Setup
+    public void setup() {
+        // 取各URL中的path段和query值作为样本
+        List<String> values = new ArrayList<>();
+        for (String url : corpus.urls()) {
+            UrlBuilder builder = UrlBuilder.parse(url);
+            if (builder.getPath() != null) {
+                values.addAll(builder.getPath().getSegments());
+            }
+            UrlQuery query = builder.getQuery();
+            if (query != null) {
+                for (Part<String, String> param : query.getParams()) {
+                    values.add(param.getValue());
+                }
+            }
+        }
+        raw = values.toArray(new String[values.size()]);
+        encoded = new String[raw.length];
+        for (int i = 0; i < raw.length; i++) {
+            encoded[i] = UrlBuilder.encode(raw[i]);
+        }
+    }
+
+    private int next() {
+        int i = index;
+        index = (i + 1) % raw.length;
+        return i;
+    }
+
+    @Benchmark
+    public String encode() {
+        return UrlBuilder.encode(raw[next()]);
+    }
+
+    @Benchmark
+    public String decode() {
+        return UrlBuilder.decode(encoded[next()]);
+    }
+
+    @Benchmark
+    public String baselineURLEncoder() throws UnsupportedEncodingException {
+        return URLEncoder.encode(raw[next()], "UTF-8");
+    }
+
+    @Benchmark
+    public String baselineURLDecoder() throws UnsupportedEncodingException {
+        return URLDecoder.decode(encoded[next()], "UTF-8");
+    }
+
+}
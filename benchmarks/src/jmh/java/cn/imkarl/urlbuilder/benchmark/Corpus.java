@@ -0,0 +1,90 @@
+package cn.imkarl.urlbuilder.benchmark;
+
+import java.util.Random;
+
+/**
+ * 基准测试使用的URL样本
+ * @version imkarl 2017-04
+ *
+ * 每种样本都是固定随机种子生成的，保证多次运行结果可比
+ */
+public enum Corpus {
+
+    /** 简短的API地址 */
+    SHORT {
+        @Override
+        String[] generate(Random random) {
+            String[] urls = new String[SIZE];
+            for (int i = 0; i < SIZE; i++) {
+                urls[i] = "https://api.example.com/v2/users/" + random.nextInt(1000000)
+                        + "/orders?page=" + random.nextInt(100) + "&size=20";
+            }
+            return urls;
+        }
+    },
+    /** 带大量统计参数的推广链接 */
+    TRACKING {
+        @Override
+        String[] generate(Random random) {
+            String[] urls = new String[SIZE];
+            for (int i = 0; i < SIZE; i++) {
+                StringBuilder builder = new StringBuilder(512);
+                builder.append("https://www.example.com/promo/2017/spring-sale/landing/index.html")
+                        .append("?utm_source=newsletter&utm_medium=email&utm_campaign=spring_sale_").append(random.nextInt(100))
+                        .append("&utm_content=banner%20top&utm_term=running+shoes")
+                        .append("&gclid=").append(Long.toHexString(random.nextLong())).append(Long.toHexString(random.nextLong()))
+                        .append("&ref=").append("https%3A%2F%2Fm.example.org%2Fsearch%3Fq%3Dshoes%26p%3D").append(random.nextInt(10))
+                        .append("&session=").append(Long.toString(random.nextLong() & Long.MAX_VALUE, 36))
+                        .append("&ts=").append(1490000000000L + random.nextInt(100000000))
+                        .append("#section-").append(random.nextInt(10));
+                urls[i] = builder.toString();
+            }
+            return urls;
+        }
+    },
+    /** path和query中包含大量非ASCII字符 */
+    NON_ASCII {
+        @Override
+        String[] generate(Random random) {
+            String[] words = {"北京", "上海", "广州", "深圳", "杭州", "成都", "東京", "서울", "Zürich", "São Paulo", "Москва", "😀"};
+            String[] urls = new String[SIZE];
+            for (int i = 0; i < SIZE; i++) {
+                String city = words[random.nextInt(words.length)];
+                String keyword = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+                urls[i] = "https://www.example.cn/城市/" + city + "/搜索?关键字=" + keyword + "&页码=" + random.nextInt(50) + "#结果";
+            }
+            return urls;
+        }
+    },
+    /** 包含数千个参数的query */
+    HUGE_QUERY {
+        @Override
+        String[] generate(Random random) {
+            String[] urls = new String[4];
+            for (int i = 0; i < urls.length; i++) {
+                StringBuilder builder = new StringBuilder(64 * 1024);
+                builder.append("https://report.example.com/collect?");
+                for (int n = 0; n < 4000; n++) {
+                    if (n > 0) {
+                        builder.append('&');
+                    }
+                    builder.append("k").append(n % 1500).append('=').append(Integer.toHexString(random.nextInt()));
+                }
+                urls[i] = builder.toString();
+            }
+            return urls;
+        }
+    };
+
+    private static final int SIZE = 256;
+
+    abstract String[] generate(Random random);
+
+    /**
+     * 生成该类样本的URL
+     */
+    public String[] urls() {
+        return generate(new Random(0x5EED + ordinal()));
+    }
+
+}
@@ -0,0 +1,125 @@
+package cn.imkarl.urlbuilder.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cn.imkarl.urlbuilder.UrlBuilder;
+import cn.imkarl.urlbuilder.UrlLogScanner;
+
+/**
+ * UrlLogScanner：扫描访问日志，以逐行读取String再解析为基准
+ * @version imkarl 2017-04
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LogScanBenchmark {
+
+    @Param({"TRACKING", "NON_ASCII"})
+    public Corpus corpus;
+
+    private File file;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() throws IOException {
+        file = File.createTempFile("access", ".log");
+        String[] urls = corpus.urls();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            for (int i = 0; i < 100000; i++) {
+                writer.write("127.0.0.1 - - [10/Apr/2017:13:55:36 +0800] \"GET " + urls[i % urls.length]
+                        + " HTTP/1.1\" 200 " + i + "\n");
+            }
+        }
+        pool = new ForkJoinPool();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+        file.delete();
+    }
+
+    /**
+     * 只统计host长度，不创建String
+     */
+    private static final class HostLength extends UrlLogScanner.Visitor {
+        long value;
+
+        @Override
+        public void host(int start, int end) {
+            value += end - start;
+        }
+        @Override
+        public boolean path(int start, int end) {
+            return false;
+        }
+        @Override
+        public boolean query(int start, int end) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public long scanEvents() throws IOException {
+        List<HostLength> visitors = new UrlLogScanner().chunkSize(1 << 20).scan(file,
+                new UrlLogScanner.Factory<HostLength>() {
+                    @Override
+                    public HostLength create() {
+                        return new HostLength();
+                    }
+                }, pool);
+        long value = 0;
+        for (HostLength visitor : visitors) {
+            value += visitor.value;
+        }
+        return value;
+    }
+
+    @Benchmark
+    public int scanUrlBuilder() throws IOException {
+        final AtomicInteger count = new AtomicInteger();
+        new UrlLogScanner().chunkSize(1 << 20).scan(file, new UrlLogScanner.Sink() {
+            @Override
+            public void accept(UrlBuilder url) {
+                count.incrementAndGet();
+            }
+        }, pool);
+        return count.get();
+    }
+
+    @Benchmark
+    public int baselineReadLineParse() throws IOException {
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int start = line.indexOf("\"GET ") + 5;
+                UrlBuilder.parse(line.substring(start, line.indexOf(' ', start)));
+                count++;
+            }
+        }
+        return count;
+    }
+
+}
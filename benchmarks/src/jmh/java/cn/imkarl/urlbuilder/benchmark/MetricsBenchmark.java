@@ -0,0 +1,63 @@
+package cn.imkarl.urlbuilder.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import cn.imkarl.urlbuilder.UrlBuilder;
+import cn.imkarl.urlbuilder.UrlMetrics;
+
+/**
+ * 统计的开销：off为没有监听器（默认），counter为注册一个计数的监听器
+ * @version imkarl 2017-04
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MetricsBenchmark {
+
+    @Param({"off", "counter"})
+    public String mode;
+
+    private final String url = "https://www.baidu.com/s/a/b?ie=UTF-8&wd=%E6%B5%8B%E8%AF%95&tfflag=1#top";
+    private final AtomicLong nanos = new AtomicLong();
+    private final UrlMetrics.Listener counter = new UrlMetrics.Listener() {
+        @Override
+        public void onOperation(UrlMetrics.Operation operation, long elapsed, int length, int components) {
+            nanos.addAndGet(elapsed);
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if ("counter".equals(mode)) {
+            UrlMetrics.addListener(counter);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        UrlMetrics.removeListener(counter);
+    }
+
+    @Benchmark
+    public String parseAndBuild() {
+        return UrlBuilder.parse(url).putQuery("page", 2).build();
+    }
+
+    @Benchmark
+    public String encode() {
+        return UrlBuilder.encode("测试 test");
+    }
+
+}
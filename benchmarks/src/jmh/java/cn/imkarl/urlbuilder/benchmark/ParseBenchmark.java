@@ -0,0 +1,144 @@
+package cn.imkarl.urlbuilder.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+import cn.imkarl.urlbuilder.UrlBuilder;
+import cn.imkarl.urlbuilder.UrlPath;
+import cn.imkarl.urlbuilder.UrlQuery;
+import cn.imkarl.urlbuilder.UrlTokenizer;
+
+/**
+ * 解析：UrlBuilder.parse、UrlBuilder.parseLazy、UrlPath.parse、UrlQuery.parse、UrlTokenizer，以java.net.URI为基准
+ * @version imkarl 2017-04
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParseBenchmark {
+
+    @Param({"SHORT", "TRACKING", "NON_ASCII", "HUGE_QUERY"})
+    public Corpus corpus;
+
+    private String[] urls;
+    private String[] encodedUrls;
+    private String[] paths;
+    private String[] queries;
+    private byte[][] bytes;
+    private final Counter counter = new Counter();
+    private int index;
+
+    @Setup
+    public void setup() {
+        urls = corpus.urls();
+        encodedUrls = new String[urls.length];
+        paths = new String[urls.length];
+        queries = new String[urls.length];
+        bytes = new byte[urls.length][];
+        for (int i = 0; i < urls.length; i++) {
+            // java.net.URI不接受未编码的非ASCII字符，统一使用编码后的URL
+            encodedUrls[i] = UrlBuilder.parse(urls[i]).build();
+            URI uri = URI.create(encodedUrls[i]);
+            paths[i] = uri.getRawPath();
+            queries[i] = uri.getRawQuery();
+            bytes[i] = urls[i].getBytes(Charset.forName("UTF-8"));
+        }
+    }
+
+    private int next() {
+        int i = index;
+        index = (i + 1) % urls.length;
+        return i;
+    }
+
+    @Benchmark
+    public UrlBuilder parse() {
+        return UrlBuilder.parse(encodedUrls[next()]);
+    }
+
+    @Benchmark
+    public UrlBuilder parseRaw() {
+        return UrlBuilder.parse(urls[next()]);
+    }
+
+    /**
+     * 解析后修改一个参数再构建，parseLazy只重新编码新增的参数
+     */
+    @Benchmark
+    public String parseEditBuild() {
+        return UrlBuilder.parse(encodedUrls[next()]).putQuery("token", "abc").build();
+    }
+
+    @Benchmark
+    public String parseLazyEditBuild() {
+        return UrlBuilder.parseLazy(encodedUrls[next()]).putQuery("token", "abc").build();
+    }
+
+    @Benchmark
+    public URI baselineURI() {
+        return URI.create(encodedUrls[next()]);
+    }
+
+    @Benchmark
+    public void baselineURIComponents(Blackhole blackhole) {
+        // 与parse等价的工作量：解析并解码各组成部分
+        URI uri = URI.create(encodedUrls[next()]);
+        blackhole.consume(uri.getHost());
+        blackhole.consume(uri.getPath());
+        blackhole.consume(uri.getQuery());
+        blackhole.consume(uri.getFragment());
+    }
+
+    @Benchmark
+    public UrlPath parsePath() {
+        return UrlPath.parse(paths[next()]);
+    }
+
+    @Benchmark
+    public UrlQuery parseQuery() {
+        return UrlQuery.parse(queries[next()]);
+    }
+
+    /**
+     * 只统计host长度与参数个数，不创建String
+     */
+    private static final class Counter extends UrlTokenizer.Visitor {
+        int value;
+
+        @Override
+        public void host(int start, int end) {
+            value += end - start;
+        }
+        @Override
+        public void param(int keyStart, int keyEnd, int valueStart, int valueEnd) {
+            value++;
+        }
+    }
+
+    @Benchmark
+    public int tokenize() {
+        counter.value = 0;
+        UrlTokenizer.tokenize(encodedUrls[next()], counter);
+        return counter.value;
+    }
+
+    @Benchmark
+    public int tokenizeBytes() {
+        counter.value = 0;
+        byte[] url = bytes[next()];
+        UrlTokenizer.tokenize(url, 0, url.length, counter);
+        return counter.value;
+    }
+
+}
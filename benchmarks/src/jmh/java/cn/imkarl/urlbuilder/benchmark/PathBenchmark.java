@@ -0,0 +1,67 @@
+package cn.imkarl.urlbuilder.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import cn.imkarl.urlbuilder.UrlBuilder;
+import cn.imkarl.urlbuilder.UrlPath;
+
+/**
+ * UrlPath：构建与逐段添加
+ * @version imkarl 2017-04
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PathBenchmark {
+
+    @Param({"SHORT", "TRACKING", "NON_ASCII"})
+    public Corpus corpus;
+
+    private UrlPath[] paths;
+    private int index;
+
+    @Setup
+    public void setup() {
+        String[] urls = corpus.urls();
+        paths = new UrlPath[urls.length];
+        for (int i = 0; i < urls.length; i++) {
+            UrlPath path = UrlBuilder.parse(urls[i]).getPath();
+            paths[i] = path == null ? new UrlPath() : path;
+        }
+    }
+
+    private int next() {
+        int i = index;
+        index = (i + 1) % paths.length;
+        return i;
+    }
+
+    @Benchmark
+    public String build() {
+        return paths[next()].build();
+    }
+
+    @Benchmark
+    public String buildRaw() {
+        return paths[next()].build(false);
+    }
+
+    @Benchmark
+    public String appendAndBuild() {
+        UrlPath path = new UrlPath();
+        for (String segment : paths[next()].getSegments()) {
+            path.append(segment);
+        }
+        return path.build();
+    }
+
+}
@@ -0,0 +1,57 @@
+package cn.imkarl.urlbuilder.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import cn.imkarl.urlbuilder.UrlBuilder;
+
+/**
+ * 整数参数：appendQuery(String, long)直接写入数字，以String.valueOf后再添加为基准
+ * @version imkarl 2017-04
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PrimitiveBenchmark {
+
+    private long id = 1000000L;
+
+    @Benchmark
+    public String appendNumbers() {
+        long i = id++;
+        return new UrlBuilder().host("api.example.com").appendPath("users").appendPath(i).appendPath("orders")
+                .appendQuery("page", (int) (i & 63)).appendQuery("size", 20)
+                .appendQuery("ts", 1491800000000L + i).appendQuery("debug", false)
+                .build();
+    }
+
+    @Benchmark
+    public String appendStrings() {
+        long i = id++;
+        return new UrlBuilder().host("api.example.com").appendPath("users").appendPath(String.valueOf(i)).appendPath("orders")
+                .appendQuery("page", String.valueOf((int) (i & 63))).appendQuery("size", String.valueOf(20))
+                .appendQuery("ts", String.valueOf(1491800000000L + i)).appendQuery("debug", String.valueOf(false))
+                .build();
+    }
+
+    /**
+     * 借出的UrlBuilder，稳定之后只分配最终的String
+     */
+    @Benchmark
+    public String appendNumbersBorrowed() {
+        long i = id++;
+        try (UrlBuilder.Lease lease = UrlBuilder.borrow()) {
+            return lease.get().host("api.example.com").appendPath("users").appendPath(i).appendPath("orders")
+                    .appendQuery("page", (int) (i & 63)).appendQuery("size", 20)
+                    .appendQuery("ts", 1491800000000L + i).appendQuery("debug", false)
+                    .build();
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+package cn.imkarl.urlbuilder.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import cn.imkarl.urlbuilder.Part;
+import cn.imkarl.urlbuilder.UrlBuilder;
+import cn.imkarl.urlbuilder.UrlQuery;
+
+/**
+ * UrlQuery：构建、put与按KEY提取
+ * @version imkarl 2017-04
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QueryBenchmark {
+
+    @Param({"SHORT", "TRACKING", "NON_ASCII", "HUGE_QUERY"})
+    public Corpus corpus;
+
+    private UrlQuery[] queries;
+    private List<List<Part<String, String>>> params;
+    private String[] raws;
+    private int index;
+
+    @Setup
+    public void setup() {
+        String[] urls = corpus.urls();
+        queries = new UrlQuery[urls.length];
+        params = new ArrayList<>(urls.length);
+        raws = new String[urls.length];
+        for (int i = 0; i < urls.length; i++) {
+            UrlQuery query = UrlBuilder.parse(urls[i]).getQuery();
+            queries[i] = query == null ? new UrlQuery() : query;
+            params.add(queries[i].getParams());
+            int start = urls[i].indexOf('?');
+            raws[i] = start < 0 ? "" : urls[i].substring(start);
+        }
+    }
+
+    private int next() {
+        int i = index;
+        index = (i + 1) % queries.length;
+        return i;
+    }
+
+    @Benchmark
+    public String build() {
+        return queries[next()].build();
+    }
+
+    @Benchmark
+    public String buildRaw() {
+        return queries[next()].build(false);
+    }
+
+    /**
+     * 逐个put，存在大量重复KEY时会触发替换
+     */
+    @Benchmark
+    public UrlQuery put() {
+        UrlQuery query = new UrlQuery();
+        for (Part<String, String> param : params.get(next())) {
+            query.put(param.getKey(), param.getValue());
+        }
+        return query;
+    }
+
+    @Benchmark
+    public UrlQuery append() {
+        UrlQuery query = new UrlQuery();
+        for (Part<String, String> param : params.get(next())) {
+            query.append(param.getKey(), param.getValue());
+        }
+        return query;
+    }
+
+    /**
+     * 只取两个KEY，不解析其余参数
+     */
+    @Benchmark
+    public String[] extract() {
+        return UrlQuery.extract(raws[next()], "utm_source", "page");
+    }
+
+    @Benchmark
+    public String[] baselineParseAndGet() {
+        UrlQuery query = UrlQuery.parse(raws[next()]);
+        return new String[]{query == null ? null : query.get("utm_source"), query == null ? null : query.get("page")};
+    }
+
+}
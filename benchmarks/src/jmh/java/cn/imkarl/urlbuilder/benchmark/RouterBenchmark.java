@@ -0,0 +1,89 @@
+package cn.imkarl.urlbuilder.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import cn.imkarl.urlbuilder.UrlPath;
+import cn.imkarl.urlbuilder.UrlRouter;
+
+/**
+ * UrlRouter：按路径段匹配路由，以逐个尝试正则表达式为基准
+ * @version imkarl 2017-04
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RouterBenchmark {
+
+    @Param({"100", "5000"})
+    public int routes;
+
+    private UrlRouter<Integer> router;
+    private Pattern[] patterns;
+    private String[] paths;
+    private List<List<String>> segments;
+    private int index;
+
+    @Setup
+    public void setup() {
+        UrlRouter.Builder<Integer> builder = new UrlRouter.Builder<>();
+        patterns = new Pattern[routes];
+        for (int i = 0; i < routes; i++) {
+            String prefix = "/api/v" + (i % 5) + "/resource" + i;
+            builder.add(prefix + "/{id}/items/{item}", i);
+            patterns[i] = Pattern.compile(Pattern.quote(prefix) + "/([^/]+)/items/([^/]+)");
+        }
+        router = builder.build();
+
+        Random random = new Random(42);
+        paths = new String[1024];
+        segments = new ArrayList<>(paths.length);
+        for (int i = 0; i < paths.length; i++) {
+            int route = random.nextInt(routes);
+            paths[i] = "/api/v" + (route % 5) + "/resource" + route + "/" + random.nextInt(100000) + "/items/" + i;
+            segments.add(UrlPath.parse(paths[i]).getSegments());
+        }
+    }
+
+    private int next() {
+        int i = index;
+        index = (i + 1) % paths.length;
+        return i;
+    }
+
+    @Benchmark
+    public UrlRouter.Match<Integer> match() {
+        return router.match(segments.get(next()));
+    }
+
+    @Benchmark
+    public UrlRouter.Match<Integer> parseAndMatch() {
+        return router.match(paths[next()]);
+    }
+
+    @Benchmark
+    public String baselineRegexScan() {
+        String path = paths[next()];
+        for (Pattern pattern : patterns) {
+            Matcher matcher = pattern.matcher(path);
+            if (matcher.matches()) {
+                return matcher.group(1);
+            }
+        }
+        return null;
+    }
+
+}
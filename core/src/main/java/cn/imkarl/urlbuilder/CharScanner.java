@@ -0,0 +1,38 @@
+package cn.imkarl.urlbuilder;
+
+/**
+ * 字符扫描，编码与解码前查找第一个需要处理的字符
+ * @version imkarl 2017-04
+ */
+final class CharScanner {
+
+    private CharScanner() {
+    }
+
+    /**
+     * @return 第一个在安全字符表中没有mask标记的字符位置，不存在时返回-1
+     */
+    static int indexOfUnsafe(CharSequence str, byte[] safe, int mask) {
+        for (int i = 0, len = str.length(); i < len; i++) {
+            char c = str.charAt(i);
+            if (c >= 128 || (safe[c] & mask) == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return 第一个'%'（plus为true时也包括'+'）的位置，不存在时返回-1
+     */
+    static int indexOfEscape(CharSequence str, boolean plus) {
+        for (int i = 0, len = str.length(); i < len; i++) {
+            char c = str.charAt(i);
+            if (c == '%' || (plus && c == '+')) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
@@ -0,0 +1,162 @@
+package cn.imkarl.urlbuilder;
+
+/**
+ * URL编码结果缓存（原始字符串 ==> 编码后的字符串），容量有限，线程安全
+ * @version imkarl 2017-04
+ *
+ * 按散列值分为多个加锁的段，每段由若干组组成，每组{@value #WAYS}个槽位；
+ * 组内使用CLOCK（二次机会）算法淘汰，查找与替换都只涉及一个组
+ *
+ * 通过{@link PercentCodec#setCache(EncodeCache)}启用
+ */
+public final class EncodeCache {
+
+    /** 超过该长度的字符串不缓存 */
+    public static final int MAX_LENGTH = 64;
+    /** 最大容量（条目数） */
+    public static final int MAX_CAPACITY = 1 << 24;
+
+    private static final int SEGMENTS = 16;
+    private static final int WAYS = 8;
+
+    private final Segment[] segments;
+    private final int setMask;
+
+    /**
+     * @param capacity 最多缓存的条目数（会向上取整），不能超过{@value #MAX_CAPACITY}
+     */
+    public EncodeCache(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("'capacity' must be in [1, " + MAX_CAPACITY + "]: " + capacity);
+        }
+        int sets = 1;
+        while (sets * SEGMENTS * WAYS < capacity) {
+            sets <<= 1;
+        }
+        this.setMask = sets - 1;
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(sets);
+        }
+    }
+
+    /**
+     * 查找缓存，未命中时进行编码并放入缓存
+     */
+    String encode(String str, PercentCodec.Component component) {
+        int h = str.hashCode() * 31 + component.ordinal();
+        h ^= (h >>> 16);
+        Segment segment = segments[h & (SEGMENTS - 1)];
+        int set = ((h >>> 4) & setMask) * WAYS;
+
+        synchronized (segment) {
+            for (int i = set; i < set + WAYS; i++) {
+                if (segment.hashes[i] == h && segment.components[i] == component && str.equals(segment.keys[i])) {
+                    segment.referenced[i] = true;
+                    segment.hits++;
+                    return segment.values[i];
+                }
+            }
+            segment.misses++;
+        }
+
+        // 编码不需要持有锁
+        String encoded = PercentCodec.encodeUncached(str, component);
+
+        synchronized (segment) {
+            int hand = segment.hands[set / WAYS];
+            int victim;
+            while (true) {
+                victim = set + hand;
+                hand = (hand + 1) & (WAYS - 1);
+                if (segment.keys[victim] == null || !segment.referenced[victim]) {
+                    break;
+                }
+                segment.referenced[victim] = false;
+            }
+            segment.hands[set / WAYS] = hand;
+            segment.keys[victim] = str;
+            segment.values[victim] = encoded;
+            segment.hashes[victim] = h;
+            segment.components[victim] = component;
+            segment.referenced[victim] = false;
+        }
+        return encoded;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                for (int i = 0; i < segment.keys.length; i++) {
+                    segment.keys[i] = null;
+                    segment.values[i] = null;
+                    segment.components[i] = null;
+                    segment.referenced[i] = false;
+                }
+                segment.hits = 0;
+                segment.misses = 0;
+            }
+        }
+    }
+
+    public int getCapacity() {
+        return SEGMENTS * (setMask + 1) * WAYS;
+    }
+    public long getHitCount() {
+        long hits = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                hits += segment.hits;
+            }
+        }
+        return hits;
+    }
+    public long getMissCount() {
+        long misses = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                misses += segment.misses;
+            }
+        }
+        return misses;
+    }
+    /**
+     * @return 命中率，没有任何请求时返回0
+     */
+    public double getHitRate() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return "EncodeCache{" +
+                "capacity=" + getCapacity() +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                '}';
+    }
+
+
+    private static final class Segment {
+        final String[] keys;
+        final String[] values;
+        final int[] hashes;
+        final PercentCodec.Component[] components;
+        final boolean[] referenced;
+        final int[] hands;
+        long hits;
+        long misses;
+
+        Segment(int sets) {
+            keys = new String[sets * WAYS];
+            values = new String[sets * WAYS];
+            hashes = new int[sets * WAYS];
+            components = new PercentCodec.Component[sets * WAYS];
+            referenced = new boolean[sets * WAYS];
+            hands = new int[sets];
+        }
+    }
+
+}
@@ -0,0 +1,21 @@
+package cn.imkarl.urlbuilder;
+
+/**
+ * JDK Flight Recorder事件
+ * @version imkarl 2017-04
+ *
+ * Java 11+ 使用 src/main/java11 中的实现（Multi-Release JAR），这里的通用实现不支持
+ */
+final class FlightRecorderEvents {
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * @return 输出事件的监听器（每次返回同一实例），不支持时返回null
+     */
+    static UrlMetrics.Listener listener() {
+        return null;
+    }
+
+}
@@ -0,0 +1,357 @@
+package cn.imkarl.urlbuilder;
+
+import java.io.IOException;
+
+/**
+ * 百分号编码（URL编码）
+ * @version imkarl 2017-04
+ *
+ * 按URL组成部分查表判断字符是否需要转义，直接以UTF-8编码输出，不经过Charset查找；
+ * 没有任何字符需要转义时，返回原字符串实例
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc3986#section-2.1">RFC 3986 - Percent-Encoding</a>
+ */
+public final class PercentCodec {
+
+    /**
+     * URL组成部分，各自对应一张安全字符表
+     */
+    public enum Component {
+        /** 路径段：unreserved / sub-delims / ":" / "@" */
+        PATH,
+        /** 查询参数的key或value：在PATH基础上增加"/" "?"，并转义"&" "=" "+" */
+        QUERY,
+        /** application/x-www-form-urlencoded，与{@link java.net.URLEncoder}一致，空格编码为'+' */
+        FORM,
+        /** 片段：unreserved / sub-delims / ":" / "@" / "/" / "?" */
+        FRAGMENT,
+        /** 用户信息：unreserved / sub-delims / ":" */
+        USERINFO;
+
+        final int mask = 1 << ordinal();
+    }
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final byte[] SAFE = new byte[128];
+
+    private static volatile EncodeCache cache;
+
+    static {
+        String alphaDigit = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+        mark(alphaDigit + "-._~" + "!$&'()*+,;=" + ":@", Component.PATH);
+        mark(alphaDigit + "-._~" + "!$'()*,;" + ":@/?", Component.QUERY);
+        mark(alphaDigit + ".-*_", Component.FORM);
+        mark(alphaDigit + "-._~" + "!$&'()*+,;=" + ":@/?", Component.FRAGMENT);
+        mark(alphaDigit + "-._~" + "!$&'()*+,;=" + ":", Component.USERINFO);
+    }
+
+    private static void mark(String chars, Component component) {
+        for (int i = 0; i < chars.length(); i++) {
+            SAFE[chars.charAt(i)] |= component.mask;
+        }
+    }
+
+    private PercentCodec() {
+    }
+
+    /**
+     * 设置编码结果缓存，对所有编码操作生效
+     * @param cache 为null时关闭缓存（默认关闭）
+     */
+    public static void setCache(EncodeCache cache) {
+        PercentCodec.cache = cache;
+    }
+    /**
+     * @return 当前使用的编码结果缓存，未启用时返回null
+     */
+    public static EncodeCache getCache() {
+        return cache;
+    }
+
+    /**
+     * 判断字符在该组成部分中是否可以不转义直接输出
+     */
+    public static boolean isSafe(char c, Component component) {
+        return c < 128 && (SAFE[c] & component.mask) != 0;
+    }
+
+    /**
+     * URL编码
+     * @return 如果没有需要转义的字符，则返回原字符串实例
+     */
+    public static String encode(String str, Component component) {
+        if (str == null) {
+            return null;
+        }
+        EncodeCache cache = PercentCodec.cache;
+        if (cache != null && str.length() <= EncodeCache.MAX_LENGTH) {
+            return cache.encode(str, component);
+        }
+        return encodeUncached(str, component);
+    }
+    static String encodeUncached(String str, Component component) {
+        int index = indexOfUnsafe(str, component);
+        if (index < 0) {
+            return str;
+        }
+        StringBuilder builder = new StringBuilder(encodedLength(str, component));
+        builder.append(str, 0, index);
+        try {
+            encodeFrom(str, index, component, builder);
+        } catch (IOException e) {
+            // StringBuilder不会抛出IOException
+            throw new IllegalStateException(e);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * URL编码，直接写入out
+     * @return out
+     */
+    public static StringBuilder encode(CharSequence str, Component component, StringBuilder out) {
+        try {
+            encode(str, component, (Appendable) out);
+        } catch (IOException e) {
+            // StringBuilder不会抛出IOException
+            throw new IllegalStateException(e);
+        }
+        return out;
+    }
+    /**
+     * URL编码，直接写入out
+     */
+    public static void encode(CharSequence str, Component component, Appendable out) throws IOException {
+        if (str == null) {
+            return;
+        }
+        EncodeCache cache = PercentCodec.cache;
+        if (cache != null && str instanceof String && str.length() <= EncodeCache.MAX_LENGTH) {
+            out.append(cache.encode((String) str, component));
+            return;
+        }
+        int index = indexOfUnsafe(str, component);
+        if (index < 0) {
+            out.append(str);
+            return;
+        }
+        out.append(str, 0, index);
+        encodeFrom(str, index, component, out);
+    }
+
+    /**
+     * 计算URL编码后的长度，不产生任何输出
+     */
+    public static int encodedLength(CharSequence str, Component component) {
+        if (str == null) {
+            return 0;
+        }
+        int mask = component.mask;
+        int len = str.length();
+        int length = len;
+        for (int i = 0; i < len; i++) {
+            char c = str.charAt(i);
+            if (c < 128) {
+                if ((SAFE[c] & mask) == 0 && !(c == ' ' && component == Component.FORM)) {
+                    length += 2;
+                }
+            } else if (c < 0x800) {
+                length += 5;
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(str.charAt(i + 1))) {
+                // 两个char => 4字节 => 12个字符
+                length += 10;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 2;
+            } else {
+                length += 8;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 检查是否已经是合法的编码结果：只包含该组成部分的安全字符和"%XX"转义序列，只遍历一次。
+     * QUERY按参数值检查，另外允许'='和'+'（表示空格）
+     * @return 第一个不合法字符在[start, end)中的位置，全部合法时返回-1
+     */
+    public static int indexOfInvalidEncoding(CharSequence str, int start, int end, Component component) {
+        int mask = component.mask;
+        boolean query = component == Component.QUERY;
+        for (int i = start; i < end; i++) {
+            char c = str.charAt(i);
+            if (c < 128 && (SAFE[c] & mask) != 0) {
+                continue;
+            }
+            if (c == '%') {
+                if (i + 2 < end && isHex(str.charAt(i + 1)) && isHex(str.charAt(i + 2))) {
+                    i += 2;
+                    continue;
+                }
+            } else if (query && (c == '=' || c == '+')) {
+                continue;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'F') || (c >= 'a' && c <= 'f');
+    }
+
+    private static int indexOfUnsafe(CharSequence str, Component component) {
+        return CharScanner.indexOfUnsafe(str, SAFE, component.mask);
+    }
+
+    private static void encodeFrom(CharSequence str, int start, Component component, Appendable out) throws IOException {
+        int mask = component.mask;
+        for (int i = start, len = str.length(); i < len; i++) {
+            char c = str.charAt(i);
+            if (c < 128) {
+                if ((SAFE[c] & mask) != 0) {
+                    out.append(c);
+                } else if (c == ' ' && component == Component.FORM) {
+                    out.append('+');
+                } else {
+                    appendEscaped(c, out);
+                }
+            } else if (c < 0x800) {
+                appendEscaped(0xC0 | (c >> 6), out);
+                appendEscaped(0x80 | (c & 0x3F), out);
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(str.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, str.charAt(++i));
+                appendEscaped(0xF0 | (codePoint >> 18), out);
+                appendEscaped(0x80 | ((codePoint >> 12) & 0x3F), out);
+                appendEscaped(0x80 | ((codePoint >> 6) & 0x3F), out);
+                appendEscaped(0x80 | (codePoint & 0x3F), out);
+            } else if (Character.isSurrogate(c)) {
+                // 不成对的代理字符，与String.getBytes("UTF-8")一致，替换为'?'
+                appendEscaped('?', out);
+            } else {
+                appendEscaped(0xE0 | (c >> 12), out);
+                appendEscaped(0x80 | ((c >> 6) & 0x3F), out);
+                appendEscaped(0x80 | (c & 0x3F), out);
+            }
+        }
+    }
+
+    private static void appendEscaped(int b, Appendable out) throws IOException {
+        out.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+    }
+
+
+    /**
+     * URL解码（FORM会将'+'解码为空格）
+     * @return 如果没有需要解码的字符，则返回原字符串实例；如果存在非法的转义序列，也返回原字符串
+     */
+    public static String decode(String str, Component component) {
+        if (str == null) {
+            return null;
+        }
+        int index = indexOfEscape(str, component);
+        if (index < 0) {
+            return str;
+        }
+        StringBuilder builder = new StringBuilder(str.length());
+        builder.append(str, 0, index);
+        if (!decodeFrom(str, index, component, builder)) {
+            return str;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * URL解码，直接写入out；如果存在非法的转义序列，则原样写入
+     * @return out
+     */
+    public static StringBuilder decode(CharSequence str, Component component, StringBuilder out) {
+        if (str == null) {
+            return out;
+        }
+        int index = indexOfEscape(str, component);
+        if (index < 0) {
+            return out.append(str);
+        }
+        int mark = out.length();
+        out.append(str, 0, index);
+        if (!decodeFrom(str, index, component, out)) {
+            out.setLength(mark);
+            out.append(str);
+        }
+        return out;
+    }
+
+    private static int indexOfEscape(CharSequence str, Component component) {
+        return CharScanner.indexOfEscape(str, component == Component.FORM);
+    }
+
+    private static boolean decodeFrom(CharSequence str, int start, Component component, StringBuilder out) {
+        boolean plus = component == Component.FORM;
+        int len = str.length();
+        int i = start;
+        while (i < len) {
+            char c = str.charAt(i);
+            if (c == '+' && plus) {
+                out.append(' ');
+                i++;
+            } else if (c != '%') {
+                out.append(c);
+                i++;
+            } else {
+                int b = hexByte(str, i, len);
+                if (b < 0) {
+                    return false;
+                }
+                i += 3;
+                if (b < 0x80) {
+                    out.append((char) b);
+                    continue;
+                }
+
+                int extra = Util.utf8Extra(b);
+                if (extra < 0) {
+                    out.append('\uFFFD');
+                    continue;
+                }
+                int codePoint = Util.utf8LeadBits(b, extra);
+                int second = -1;
+                int valid = 0;
+                for (int next = i; valid < extra; valid++, next += 3) {
+                    int cb = (next < len && str.charAt(next) == '%') ? hexByte(str, next, len) : -1;
+                    if (cb < 0 && next < len && str.charAt(next) == '%') {
+                        return false;
+                    }
+                    if ((cb & 0xC0) != 0x80) {
+                        break;
+                    }
+                    if (valid == 0) {
+                        second = cb;
+                    }
+                    codePoint = (codePoint << 6) | (cb & 0x3F);
+                }
+                if (valid < extra || !Util.isValidUtf8(codePoint, extra)) {
+                    i += 3 * (Util.utf8MalformedLength(b, second, extra, valid, codePoint) - 1);
+                    out.append('\uFFFD');
+                    continue;
+                }
+                i += 3 * extra;
+                out.appendCodePoint(codePoint);
+            }
+        }
+        return true;
+    }
+
+    private static int hexByte(CharSequence str, int index, int len) {
+        if (index + 2 >= len) {
+            return -1;
+        }
+        int hi = Character.digit(str.charAt(index + 1), 16);
+        int lo = Character.digit(str.charAt(index + 2), 16);
+        if (hi < 0 || lo < 0) {
+            return -1;
+        }
+        return (hi << 4) | lo;
+    }
+
+}
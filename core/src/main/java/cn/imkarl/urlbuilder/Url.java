@@ -0,0 +1,581 @@
+package cn.imkarl.urlbuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 不可变的 URL，线程安全
+ * @version imkarl 2017-04
+ *
+ * 由{@link UrlBuilder#freeze()}得到。path和query使用持久化链表保存，派生出的新对象与原对象共享未改变的部分，
+ * 因此{@link #resolveSegment(String)}、{@link #withQuery(String, String)}等派生操作的开销为O(1)
+ * （withQuery替换的KEY在冻结之后也添加过时，为O(冻结之后添加的参数数)）。
+ * 只有冻结时的链表尾节点缓存编码结果；派生对象构建时复制缓存的结果（跳过被替换的参数），只对新增的部分进行编码。
+ * 已编码添加的路径段、query VALUE和fragment保留原文，构建时原样输出，与UrlBuilder一致
+ */
+public final class Url {
+
+    private final Origin origin;
+    private final Segment path;
+    private final boolean endTag;
+    private final Param query;
+    private final String fragment;
+    /** fragment是否为已编码的原文（构建时原样输出） */
+    private final boolean fragmentEncoded;
+
+    private volatile String built;
+
+    private Url(Origin origin, Segment path, boolean endTag, Param query, String fragment, boolean fragmentEncoded) {
+        this.origin = origin;
+        this.path = path;
+        this.endTag = endTag;
+        this.query = query;
+        this.fragment = fragment;
+        this.fragmentEncoded = fragmentEncoded;
+    }
+
+    static Url from(UrlBuilder builder) {
+        Origin origin = new Origin(builder.getScheme(), builder.getUserInfo(), builder.getHost(), builder.getPort());
+
+        Segment path = null;
+        boolean endTag = false;
+        if (builder.getPath() != null) {
+            List<String> segments = builder.getPath().segments();
+            if (segments != null) {
+                for (int i = 0; i < segments.size(); i++) {
+                    path = new Segment(path, segments.get(i), builder.getPath().verbatimSegment(i));
+                }
+            }
+            endTag = builder.getPath().isEndTag();
+        }
+
+        Param query = null;
+        if (builder.getQuery() != null) {
+            String[] verbatim = builder.getQuery().verbatimValues();
+            int index = 0;
+            for (Part<String, String> param : builder.getQuery().getParams()) {
+                query = new Param(query, param.getKey(), param.getValue(), verbatim == null ? null : verbatim[index], false);
+                index++;
+            }
+        }
+        String verbatimFragment = builder.verbatimFragment();
+        return new Url(origin, Segment.base(path), endTag, Param.base(query),
+                verbatimFragment != null ? verbatimFragment : builder.getFragment(), verbatimFragment != null);
+    }
+
+
+    public Url withScheme(String scheme) {
+        return new Url(new Origin(scheme, origin.userInfo, origin.host, origin.port), path, endTag, query, fragment, fragmentEncoded);
+    }
+    public Url withUserInfo(String userInfo) {
+        return new Url(new Origin(origin.scheme, userInfo, origin.host, origin.port), path, endTag, query, fragment, fragmentEncoded);
+    }
+    public Url withHost(String host) {
+        return new Url(new Origin(origin.scheme, origin.userInfo, host, origin.port), path, endTag, query, fragment, fragmentEncoded);
+    }
+    public Url withPort(int port) {
+        return new Url(new Origin(origin.scheme, origin.userInfo, origin.host, port), path, endTag, query, fragment, fragmentEncoded);
+    }
+
+    /**
+     * 添加到path最后面
+     */
+    public Url resolveSegment(String segment) {
+        segment = UrlPath.normalizeSegment(segment);
+        if (segment == null) {
+            return this;
+        }
+        return new Url(origin, new Segment(path, segment, null), endTag, query, fragment, fragmentEncoded);
+    }
+    public Url withEndTag(boolean endTag) {
+        if (this.endTag == endTag) {
+            return this;
+        }
+        return new Url(origin, path, endTag, query, fragment, fragmentEncoded);
+    }
+
+    /**
+     * 如果已存在相同KEY，则替换之前所有的
+     */
+    public Url withQuery(String key, String value) {
+        return addQuery(key, value, true);
+    }
+    /**
+     * 添加query，不论是否已存在相同KEY
+     */
+    public Url withAppendedQuery(String key, String value) {
+        return addQuery(key, value, false);
+    }
+    private Url addQuery(String key, String value, boolean replace) {
+        if (Util.isEmpty(key)) {
+            return this;
+        }
+        key = key.trim();
+        value = Util.isEmpty(value) ? "" : value.trim();
+        Param parent = replace ? Param.removeAdded(query, key) : query;
+        return new Url(origin, path, endTag, new Param(parent, key, value, null, replace), fragment, fragmentEncoded);
+    }
+
+    public Url withFragment(String fragment) {
+        if (Util.isEmpty(fragment)) {
+            fragment = null;
+        } else if (fragment.charAt(0) == '#') {
+            fragment = fragment.substring(1);
+        }
+        return new Url(origin, path, endTag, query, fragment, false);
+    }
+
+
+    public String build() {
+        if (Util.isEmpty(origin.host)) {
+            throw new IllegalArgumentException("'host' must be non empty.");
+        }
+        return encoded();
+    }
+
+    /**
+     * 编码后的URL，不检查host（equals、hashCode使用）
+     */
+    private String encoded() {
+        String result = built;
+        if (result == null) {
+            String encodedOrigin = origin.encoded();
+            StringBuilder builder = new StringBuilder(encodedOrigin.length() + 64);
+            builder.append(encodedOrigin);
+            int pathStart = builder.length();
+            Segment.appendEncoded(path, builder);
+            if (builder.length() == pathStart || endTag) {
+                builder.append('/');
+            }
+            if (query != null) {
+                Param.appendEncoded(query, builder.append('?'));
+            }
+            if (fragmentEncoded) {
+                builder.append('#').append(fragment);
+            } else if (Util.isNotEmpty(fragment)) {
+                PercentCodec.encode(fragment, PercentCodec.Component.FORM, builder.append('#'));
+            }
+            result = builder.toString();
+            built = result;
+        }
+        return result;
+    }
+
+    /**
+     * 转换为可变的UrlBuilder
+     */
+    public UrlBuilder toBuilder() {
+        UrlPath urlPath = null;
+        if (path != null || endTag) {
+            urlPath = new UrlPath();
+            Segment[] segments = new Segment[path == null ? 0 : path.depth];
+            for (Segment node = path; node != null; node = node.parent) {
+                segments[node.depth - 1] = node;
+            }
+            for (Segment segment : segments) {
+                if (segment.verbatim != null) {
+                    urlPath.appendEncoded(segment.verbatim, false);
+                } else {
+                    urlPath.addSegment(segment.value);
+                }
+            }
+            urlPath.endTag(endTag);
+        }
+        UrlQuery urlQuery = null;
+        if (query != null) {
+            urlQuery = new UrlQuery();
+            for (Param param : Param.effective(query)) {
+                if (param.verbatim != null) {
+                    urlQuery.addEncoded(param.key, param.verbatim);
+                } else {
+                    urlQuery.add(param.key, param.value);
+                }
+            }
+        }
+        UrlBuilder builder = UrlBuilder.from(origin.scheme, origin.host, origin.port, urlPath, urlQuery,
+                fragmentEncoded ? null : fragment).userInfo(origin.userInfo);
+        if (fragmentEncoded) {
+            // 冻结前已经检查过（或者由调用方关闭了检查），这里不再检查
+            builder.validateEncoded(false).encodedFragment(fragment).validateEncoded(true);
+        }
+        return builder;
+    }
+
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return encoded().equals(((Url) o).encoded());
+    }
+
+    @Override
+    public int hashCode() {
+        return encoded().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return build();
+    }
+
+    public String getScheme() {
+        return origin.scheme;
+    }
+    public String getUserInfo() {
+        return origin.userInfo;
+    }
+    public String getHost() {
+        return origin.host;
+    }
+    public int getPort() {
+        return origin.port;
+    }
+    public List<String> getSegments() {
+        String[] segments = new String[path == null ? 0 : path.depth];
+        for (Segment node = path; node != null; node = node.parent) {
+            segments[node.depth - 1] = node.value;
+        }
+        List<String> result = new ArrayList<>(segments.length);
+        Collections.addAll(result, segments);
+        return result;
+    }
+    public boolean isEndTag() {
+        return endTag;
+    }
+    /**
+     * @return query参数（按添加顺序）
+     */
+    public List<Part<String, String>> getParams() {
+        List<Param> params = Param.effective(query);
+        List<Part<String, String>> result = new ArrayList<>(params.size());
+        for (Param param : params) {
+            result.add(new Part<>(param.key, param.value));
+        }
+        return result;
+    }
+    /**
+     * @return 已编码的fragment在此时才解码
+     */
+    public String getFragment() {
+        return fragmentEncoded ? Util.decode(fragment) : fragment;
+    }
+
+
+    /**
+     * scheme、userInfo、host、port，以及编码后的前缀
+     */
+    private static final class Origin {
+        final String scheme;
+        final String userInfo;
+        final String host;
+        final int port;
+        private volatile String encoded;
+
+        Origin(String scheme, String userInfo, String host, int port) {
+            this.scheme = scheme;
+            this.userInfo = userInfo;
+            this.host = host;
+            this.port = port;
+        }
+
+        String encoded() {
+            String result = encoded;
+            if (result == null) {
+                StringBuilder builder = new StringBuilder();
+                builder.append(Util.isEmpty(scheme) ? "http" : scheme).append("://");
+                if (Util.isNotEmpty(userInfo)) {
+                    PercentCodec.encode(userInfo, PercentCodec.Component.USERINFO, builder).append('@');
+                }
+                PercentCodec.encode(host, PercentCodec.Component.FORM, builder);
+                if (port > 0) {
+                    builder.append(':').append(port);
+                }
+                result = builder.toString();
+                encoded = result;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * path的持久化链表节点，指向上一个路径段
+     */
+    private static final class Segment {
+        final Segment parent;
+        final String value;
+        /** 已编码的原文（构建时原样输出），不是已编码添加的路径段时为null */
+        final String verbatim;
+        final int depth;
+        /** 是否为冻结时的尾节点，只有它缓存编码结果 */
+        private final boolean base;
+        /** 从根到当前节点编码后的path，只在base节点上使用 */
+        private volatile String encoded;
+
+        Segment(Segment parent, String value, String verbatim) {
+            this(parent, value, verbatim, false);
+        }
+        private Segment(Segment parent, String value, String verbatim, boolean base) {
+            this.parent = parent;
+            this.value = value;
+            this.verbatim = verbatim;
+            this.depth = parent == null ? 1 : parent.depth + 1;
+            this.base = base;
+        }
+
+        /**
+         * @return 与node相同、可以缓存编码结果的尾节点
+         */
+        static Segment base(Segment node) {
+            return node == null ? null : new Segment(node.parent, node.value, node.verbatim, true);
+        }
+
+        /**
+         * 写入编码后的path：base节点之前的部分使用缓存，之后新增的路径段在这里编码
+         */
+        static void appendEncoded(Segment node, StringBuilder builder) {
+            if (node == null) {
+                return;
+            }
+            Segment[] pending = new Segment[node.depth];
+            int count = 0;
+            for (; node != null && !node.base; node = node.parent) {
+                pending[count++] = node;
+            }
+            if (node != null) {
+                builder.append(node.encoded());
+            }
+            for (int i = count - 1; i >= 0; i--) {
+                appendSegment(pending[i], builder);
+            }
+        }
+
+        private String encoded() {
+            String result = encoded;
+            if (result == null) {
+                Segment[] segments = new Segment[depth];
+                for (Segment node = this; node != null; node = node.parent) {
+                    segments[node.depth - 1] = node;
+                }
+                StringBuilder builder = new StringBuilder(depth * 16);
+                for (Segment segment : segments) {
+                    appendSegment(segment, builder);
+                }
+                result = builder.toString();
+                encoded = result;
+            }
+            return result;
+        }
+
+        private static void appendSegment(Segment segment, StringBuilder builder) {
+            builder.append('/');
+            if (segment.verbatim != null) {
+                builder.append(segment.verbatim);
+            } else {
+                PercentCodec.encode(segment.value, PercentCodec.Component.FORM, builder);
+            }
+        }
+    }
+
+    /**
+     * query的持久化链表节点，指向上一个参数
+     */
+    private static final class Param {
+        final Param parent;
+        final String key;
+        final String value;
+        /** 已编码的VALUE原文（构建时原样输出），不是已编码添加的参数时为null */
+        final String verbatim;
+        /** 是否替换之前所有相同KEY的参数（包括冻结时已有的参数） */
+        final boolean replace;
+        final int size;
+        /** 是否为冻结时的尾节点，只有它缓存编码结果 */
+        private final boolean base;
+        /** 从第一个参数到当前节点编码后的query，只在base节点上使用 */
+        private volatile Encoded encoded;
+
+        Param(Param parent, String key, String value, String verbatim, boolean replace) {
+            this(parent, key, value, verbatim, replace, false);
+        }
+        private Param(Param parent, String key, String value, String verbatim, boolean replace, boolean base) {
+            this.parent = parent;
+            this.key = key;
+            this.value = value;
+            this.verbatim = verbatim;
+            this.replace = replace;
+            this.size = parent == null ? 1 : parent.size + 1;
+            this.base = base;
+        }
+
+        /**
+         * @return 与node相同、可以缓存编码结果的尾节点
+         */
+        static Param base(Param node) {
+            return node == null ? null : new Param(node.parent, node.key, node.value, node.verbatim, node.replace, true);
+        }
+
+        /**
+         * 移除冻结之后添加的相同KEY的参数：不存在时返回原链表，否则只重建冻结之后的部分，仍共享冻结时的节点。
+         * 冻结时已有的相同KEY的参数由新节点的replace标记在构建时跳过
+         */
+        static Param removeAdded(Param node, String key) {
+            int count = 0;
+            boolean found = false;
+            Param base = node;
+            for (; base != null && !base.base; base = base.parent) {
+                found |= base.key.equals(key);
+                count++;
+            }
+            if (!found) {
+                return node;
+            }
+            Param[] added = new Param[count];
+            for (Param param = node; param != base; param = param.parent) {
+                added[--count] = param;
+            }
+            Param result = base;
+            for (Param param : added) {
+                if (!param.key.equals(key)) {
+                    result = new Param(result, param.key, param.value, param.verbatim, param.replace);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * @return 冻结之后添加的参数（按添加顺序）
+         */
+        private static List<Param> added(Param node) {
+            List<Param> added = new ArrayList<>();
+            for (; node != null && !node.base; node = node.parent) {
+                added.add(node);
+            }
+            Collections.reverse(added);
+            return added;
+        }
+
+        /**
+         * @return 冻结之后由withQuery替换的KEY，没有时返回null
+         */
+        private static Set<String> replacedKeys(List<Param> added) {
+            Set<String> replaced = null;
+            for (Param param : added) {
+                if (param.replace) {
+                    if (replaced == null) {
+                        replaced = new HashSet<>();
+                    }
+                    replaced.add(param.key);
+                }
+            }
+            return replaced;
+        }
+
+        /**
+         * @return 生效的参数（按添加顺序），去除了被替换的参数
+         */
+        static List<Param> effective(Param node) {
+            List<Param> added = added(node);
+            Param base = added.isEmpty() ? node : added.get(0).parent;
+            Set<String> replaced = replacedKeys(added);
+            List<Param> result = new ArrayList<>();
+            Param[] params = new Param[base == null ? 0 : base.size];
+            for (Param param = base; param != null; param = param.parent) {
+                params[param.size - 1] = param;
+            }
+            for (Param param : params) {
+                if (replaced == null || !replaced.contains(param.key)) {
+                    result.add(param);
+                }
+            }
+            result.addAll(added);
+            return result;
+        }
+
+        /**
+         * 写入编码后的query：冻结时的参数复制缓存的编码结果（跳过被替换的参数），之后新增的参数在这里编码
+         */
+        static void appendEncoded(Param node, StringBuilder builder) {
+            List<Param> added = added(node);
+            Param base = added.isEmpty() ? node : added.get(0).parent;
+            int start = builder.length();
+            if (base != null) {
+                Encoded encoded = base.encoded();
+                Set<String> replaced = replacedKeys(added);
+                if (replaced == null) {
+                    builder.append(encoded.text);
+                } else {
+                    // 逐段复制未被替换的参数，不重新编码
+                    int from = 0;
+                    for (int i = 0; i < encoded.keys.length; i++) {
+                        int end = encoded.ends[i];
+                        if (!replaced.contains(encoded.keys[i])) {
+                            if (builder.length() > start) {
+                                builder.append('&');
+                            }
+                            builder.append(encoded.text, from, end);
+                        }
+                        from = end + 1;
+                    }
+                }
+            }
+            for (Param param : added) {
+                if (builder.length() > start) {
+                    builder.append('&');
+                }
+                appendParam(param, builder);
+            }
+        }
+
+        private Encoded encoded() {
+            Encoded result = encoded;
+            if (result == null) {
+                String[] keys = new String[size];
+                int[] ends = new int[size];
+                Param[] params = new Param[size];
+                for (Param param = this; param != null; param = param.parent) {
+                    params[param.size - 1] = param;
+                }
+                StringBuilder builder = new StringBuilder(size * 32);
+                for (int i = 0; i < size; i++) {
+                    if (i > 0) {
+                        builder.append('&');
+                    }
+                    appendParam(params[i], builder);
+                    keys[i] = params[i].key;
+                    ends[i] = builder.length();
+                }
+                result = new Encoded(builder.toString(), keys, ends);
+                encoded = result;
+            }
+            return result;
+        }
+
+        private static void appendParam(Param param, StringBuilder builder) {
+            PercentCodec.encode(param.key, PercentCodec.Component.FORM, builder).append('=');
+            if (param.verbatim != null) {
+                builder.append(param.verbatim);
+            } else {
+                PercentCodec.encode(param.value, PercentCodec.Component.FORM, builder);
+            }
+        }
+    }
+
+    /**
+     * 冻结时的query编码结果，以及每个参数的KEY和在其中的结束位置
+     */
+    private static final class Encoded {
+        final String text;
+        final String[] keys;
+        final int[] ends;
+
+        Encoded(String text, String[] keys, int[] ends) {
+            this.text = text;
+            this.keys = keys;
+            this.ends = ends;
+        }
+    }
+
+}
@@ -0,0 +1,251 @@
+package cn.imkarl.urlbuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 批量生成 URL：所有URL共享同一个基础URL，每一行数据只补充少量path或query
+ * @version imkarl 2017-04
+ *
+ * 基础URL只编码一次；每次forEach（并行时每个任务）复用一个缓冲区，生成每行URL时只对该行的数据进行编码。
+ * 通过{@link UrlBuilder#batch(UrlBuilder)}创建，创建之后对基础URL的修改不会生效
+ */
+public final class UrlBatch {
+
+    /** 并行时每个任务最少处理的行数 */
+    private static final int MIN_CHUNK = 256;
+
+    /**
+     * 将一行数据写入URL
+     */
+    public interface Binder<T> {
+        void bind(T row, Row url);
+    }
+
+    /**
+     * 接收生成的URL
+     */
+    public interface Sink {
+        /**
+         * @param url 生成的URL，只在本次调用期间有效（缓冲区会被下一行复用），需要保留时请调用toString()
+         */
+        void accept(CharSequence url);
+    }
+
+    /** scheme、host、port、基础path（不含末尾的'/'） */
+    private final String prefix;
+    private final boolean hasSegments;
+    private final boolean endTag;
+    /** 编码后的基础query，不带'?' */
+    private final String query;
+    /** 编码后的基础fragment，不带'#' */
+    private final String fragment;
+
+    UrlBatch(UrlBuilder base) {
+        StringBuilder builder = new StringBuilder(base.encodedLength());
+        UrlPath path = base.getPath();
+        this.hasSegments = path != null && !Util.isEmpty(path.segments());
+        this.endTag = path != null && path.isEndTag();
+
+        // 基础URL去掉path末尾的'/'、query和fragment之后，即为前缀；path使用其编码结果，保留已编码的路径段
+        UrlBuilder origin = UrlBuilder.from(base.getScheme(), base.getHost(), base.getPort(), (UrlPath) null, null, null)
+                .userInfo(base.getUserInfo());
+        origin.buildTo(builder);
+        builder.setLength(builder.length() - 1);
+        if (hasSegments) {
+            path.buildTo(builder);
+            if (endTag) {
+                builder.setLength(builder.length() - 1);
+            }
+        }
+        this.prefix = builder.toString();
+        this.query = base.getQuery() == null ? "" : base.getQuery().build(true);
+        String verbatimFragment = base.verbatimFragment();
+        if (verbatimFragment != null) {
+            this.fragment = verbatimFragment;
+        } else {
+            this.fragment = Util.isEmpty(base.getFragment()) ? "" : Util.encode(base.getFragment());
+        }
+    }
+
+
+    /**
+     * 依次生成每一行对应的URL
+     */
+    public <T> void forEach(Iterable<? extends T> rows, Binder<? super T> binder, Sink sink) {
+        Row row = new Row(this);
+        for (T item : rows) {
+            sink.accept(row.build(item, binder));
+        }
+    }
+
+    /**
+     * 在ForkJoinPool中并行生成每一行对应的URL，sink需要是线程安全的
+     */
+    public <T> void parallelForEach(List<? extends T> rows, Binder<? super T> binder, Sink sink, ForkJoinPool pool) {
+        int chunk = Math.max(MIN_CHUNK, rows.size() / (pool.getParallelism() * 4));
+        pool.invoke(new BatchTask<>(this, rows, binder, sink, 0, rows.size(), chunk));
+    }
+
+    /**
+     * 依次生成每一行对应的URL
+     */
+    public <T> List<String> build(List<? extends T> rows, Binder<? super T> binder) {
+        final List<String> result = new ArrayList<>(rows.size());
+        forEach(rows, binder, new Sink() {
+            @Override
+            public void accept(CharSequence url) {
+                result.add(url.toString());
+            }
+        });
+        return result;
+    }
+
+
+    private static final class BatchTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final UrlBatch batch;
+        private final List<? extends T> rows;
+        private final Binder<? super T> binder;
+        private final Sink sink;
+        private final int start;
+        private final int end;
+        private final int chunk;
+
+        BatchTask(UrlBatch batch, List<? extends T> rows, Binder<? super T> binder, Sink sink, int start, int end, int chunk) {
+            this.batch = batch;
+            this.rows = rows;
+            this.binder = binder;
+            this.sink = sink;
+            this.start = start;
+            this.end = end;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= chunk) {
+                // 每个任务至少处理MIN_CHUNK行，缓冲区只在任务内复用，任务结束后即可回收
+                Row row = new Row(batch);
+                for (int i = start; i < end; i++) {
+                    sink.accept(row.build(rows.get(i), binder));
+                }
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new BatchTask<>(batch, rows, binder, sink, start, middle, chunk),
+                    new BatchTask<>(batch, rows, binder, sink, middle, end, chunk));
+        }
+    }
+
+
+    /**
+     * 一行URL的写入器，直接写入当前任务的缓冲区。
+     * 必须按照 path ==> query ==> fragment 的顺序调用
+     */
+    public static final class Row {
+        private static final int PATH = 0;
+        private static final int QUERY = 1;
+        private static final int FRAGMENT = 2;
+
+        private final UrlBatch batch;
+        private final StringBuilder buffer = new StringBuilder(128);
+        private int stage;
+        private boolean hasSegments;
+        private boolean hasQuery;
+
+        Row(UrlBatch batch) {
+            this.batch = batch;
+        }
+
+        <T> CharSequence build(T item, Binder<? super T> binder) {
+            buffer.setLength(0);
+            buffer.append(batch.prefix);
+            stage = PATH;
+            hasSegments = batch.hasSegments;
+            hasQuery = false;
+
+            binder.bind(item, this);
+
+            if (stage == PATH) {
+                closePath();
+            }
+            if (stage != FRAGMENT && !batch.fragment.isEmpty()) {
+                buffer.append('#').append(batch.fragment);
+            }
+            return buffer;
+        }
+
+        /**
+         * 添加到path最后面
+         */
+        public Row appendPath(String segment) {
+            if (stage != PATH) {
+                throw new IllegalStateException("appendPath() must be called before appendQuery() and fragment().");
+            }
+            segment = UrlPath.normalizeSegment(segment);
+            if (segment != null) {
+                PercentCodec.encode(segment, PercentCodec.Component.FORM, buffer.append('/'));
+                hasSegments = true;
+            }
+            return this;
+        }
+
+        /**
+         * 添加query，不论基础URL中是否已存在相同KEY
+         */
+        public Row appendQuery(String key, String value) {
+            if (stage == FRAGMENT) {
+                throw new IllegalStateException("appendQuery() must be called before fragment().");
+            }
+            if (Util.isEmpty(key)) {
+                return this;
+            }
+            if (stage == PATH) {
+                closePath();
+            }
+            buffer.append(hasQuery ? '&' : '?');
+            hasQuery = true;
+            PercentCodec.encode(key.trim(), PercentCodec.Component.FORM, buffer).append('=');
+            if (Util.isNotEmpty(value)) {
+                PercentCodec.encode(value.trim(), PercentCodec.Component.FORM, buffer);
+            }
+            return this;
+        }
+
+        /**
+         * 替换基础URL中的fragment
+         */
+        public Row fragment(String fragment) {
+            if (stage == FRAGMENT) {
+                throw new IllegalStateException("fragment() can only be called once.");
+            }
+            if (stage == PATH) {
+                closePath();
+            }
+            stage = FRAGMENT;
+            if (Util.isNotEmpty(fragment) && fragment.charAt(0) == '#') {
+                fragment = fragment.substring(1);
+            }
+            if (Util.isNotEmpty(fragment)) {
+                PercentCodec.encode(fragment, PercentCodec.Component.FORM, buffer.append('#'));
+            }
+            return this;
+        }
+
+        private void closePath() {
+            if (batch.endTag || !hasSegments) {
+                buffer.append('/');
+            }
+            if (!batch.query.isEmpty()) {
+                buffer.append('?').append(batch.query);
+                hasQuery = true;
+            }
+            stage = QUERY;
+        }
+    }
+
+}
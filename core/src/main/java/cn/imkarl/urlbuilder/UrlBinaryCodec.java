@@ -0,0 +1,445 @@
+package cn.imkarl.urlbuilder;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * UrlBuilder 的紧凑二进制格式，线程安全；每次写入使用独立的缓冲区，不在实例上保留
+ * @version imkarl 2017-04
+ *
+ * 保存的是解码后的各组成部分（UTF-8），读取时直接还原为UrlBuilder，不需要再解析和URL解码：
+ * <pre>
+ *   flags      1字节，见FLAG_*
+ *   scheme     1字节，常见scheme的编号，其它scheme为CUSTOM，后跟字符串
+ *   userInfo   字符串（FLAG_USER_INFO）
+ *   host       字典引用（FLAG_HOST）
+ *   port       varint（FLAG_PORT）
+ *   path       varint个数 + 每个路径段的字符串（FLAG_PATH）
+ *   query      varint个数 + 每个参数的KEY（字典引用）和VALUE（字符串）（FLAG_QUERY）
+ *   fragment   字符串（FLAG_FRAGMENT）
+ *
+ *   varint     无符号LEB128
+ *   字符串      varint(UTF-8字节数 + 1) + UTF-8字节，0表示null
+ *   字典引用    varint，0表示后跟字符串，n表示字典中第n-1项
+ * </pre>
+ * 可选的host字典和KEY字典需要在写入和读取两端保持一致
+ */
+public final class UrlBinaryCodec {
+
+    private static final int FLAG_USER_INFO = 1;
+    private static final int FLAG_HOST = 1 << 1;
+    private static final int FLAG_PORT = 1 << 2;
+    private static final int FLAG_PATH = 1 << 3;
+    private static final int FLAG_END_TAG = 1 << 4;
+    private static final int FLAG_QUERY = 1 << 5;
+    private static final int FLAG_FRAGMENT = 1 << 6;
+
+    /**
+     * 常见的scheme，编号即为ordinal()，只允许在末尾添加
+     */
+    private enum Scheme {
+        NONE(null), CUSTOM(null), HTTP("http"), HTTPS("https"), WS("ws"), WSS("wss"), FTP("ftp"), FILE("file");
+
+        static final Scheme[] VALUES = values();
+
+        final String name;
+
+        Scheme(String name) {
+            this.name = name;
+        }
+
+        static Scheme of(String scheme) {
+            if (scheme == null) {
+                return NONE;
+            }
+            for (int i = HTTP.ordinal(); i < VALUES.length; i++) {
+                if (VALUES[i].name.equals(scheme)) {
+                    return VALUES[i];
+                }
+            }
+            return CUSTOM;
+        }
+    }
+
+    private final String[] hosts;
+    private final Map<String, Integer> hostIndex;
+    private final String[] keys;
+    private final Map<String, Integer> keyIndex;
+
+    /**
+     * 不使用字典
+     */
+    public UrlBinaryCodec() {
+        this(Collections.<String>emptyList(), Collections.<String>emptyList());
+    }
+    /**
+     * @param hosts 常用的host，写入时只保存其下标
+     * @param keys 常用的query KEY，写入时只保存其下标
+     */
+    public UrlBinaryCodec(List<String> hosts, List<String> keys) {
+        this.hosts = hosts.toArray(new String[hosts.size()]);
+        this.hostIndex = index(this.hosts);
+        this.keys = keys.toArray(new String[keys.size()]);
+        this.keyIndex = index(this.keys);
+    }
+
+    private static Map<String, Integer> index(String[] dictionary) {
+        Map<String, Integer> index = new HashMap<>(dictionary.length * 2);
+        for (int i = 0; i < dictionary.length; i++) {
+            if (dictionary[i] == null) {
+                throw new IllegalArgumentException("Dictionary must not contain null.");
+            }
+            if (!index.containsKey(dictionary[i])) {
+                index.put(dictionary[i], i);
+            }
+        }
+        return index;
+    }
+
+
+    /**
+     * @return 编码后的字节
+     */
+    public byte[] encode(UrlBuilder url) {
+        ByteWriter writer = new ByteWriter();
+        write(url, writer);
+        return Arrays.copyOf(writer.bytes, writer.length);
+    }
+    /**
+     * 写入buffer的当前位置
+     * @throws java.nio.BufferOverflowException 剩余空间不足
+     */
+    public void write(UrlBuilder url, ByteBuffer buffer) {
+        ByteWriter writer = new ByteWriter();
+        write(url, writer);
+        buffer.put(writer.bytes, 0, writer.length);
+    }
+    public void write(UrlBuilder url, DataOutput out) throws IOException {
+        ByteWriter writer = new ByteWriter();
+        write(url, writer);
+        out.write(writer.bytes, 0, writer.length);
+    }
+
+    private void write(UrlBuilder url, ByteWriter writer) {
+        UrlPath path = url.getPath();
+        List<String> segments = path == null ? null : path.segments();
+        UrlQuery query = url.getQuery();
+
+        int flags = 0;
+        if (url.getUserInfo() != null) flags |= FLAG_USER_INFO;
+        if (url.getHost() != null) flags |= FLAG_HOST;
+        if (url.getPort() != -1) flags |= FLAG_PORT;
+        if (path != null) flags |= FLAG_PATH;
+        if (path != null && path.isEndTag()) flags |= FLAG_END_TAG;
+        if (query != null) flags |= FLAG_QUERY;
+        if (url.getFragment() != null) flags |= FLAG_FRAGMENT;
+        writer.writeByte(flags);
+
+        Scheme scheme = Scheme.of(url.getScheme());
+        writer.writeByte(scheme.ordinal());
+        if (scheme == Scheme.CUSTOM) {
+            writer.writeString(url.getScheme());
+        }
+        if ((flags & FLAG_USER_INFO) != 0) {
+            writer.writeString(url.getUserInfo());
+        }
+        if ((flags & FLAG_HOST) != 0) {
+            writeReference(writer, url.getHost(), hostIndex);
+        }
+        if ((flags & FLAG_PORT) != 0) {
+            // port可能为-1之外的负数
+            writer.writeVarint(url.getPort() + 1);
+        }
+        if ((flags & FLAG_PATH) != 0) {
+            int count = segments == null ? 0 : segments.size();
+            writer.writeVarint(count);
+            for (int i = 0; i < count; i++) {
+                writer.writeString(segments.get(i));
+            }
+        }
+        if ((flags & FLAG_QUERY) != 0) {
+            query.writeTo(this, writer);
+        }
+        if ((flags & FLAG_FRAGMENT) != 0) {
+            writer.writeString(url.getFragment());
+        }
+    }
+
+    /**
+     * 由{@link UrlQuery}按添加顺序回调
+     */
+    void writeParam(ByteWriter writer, String key, String value) {
+        writeReference(writer, key, keyIndex);
+        writer.writeString(value);
+    }
+
+    private static void writeReference(ByteWriter writer, String value, Map<String, Integer> index) {
+        Integer i = index.isEmpty() ? null : index.get(value);
+        if (i != null) {
+            writer.writeVarint(i + 1);
+        } else {
+            writer.writeVarint(0);
+            writer.writeString(value);
+        }
+    }
+
+
+    public UrlBuilder decode(byte[] bytes) {
+        return read(ByteBuffer.wrap(bytes));
+    }
+    /**
+     * 从buffer的当前位置读取
+     * @throws IllegalArgumentException 数据不完整或格式错误
+     */
+    public UrlBuilder read(ByteBuffer buffer) {
+        try {
+            return read(new BufferReader(buffer));
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated data.", e);
+        } catch (IOException e) {
+            // BufferReader不会抛出IOException
+            throw new IllegalStateException(e);
+        }
+    }
+    public UrlBuilder read(DataInput in) throws IOException {
+        return read(new DataReader(in));
+    }
+
+    private UrlBuilder read(ByteReader reader) throws IOException {
+        int flags = reader.readByte();
+        if ((flags & ~0x7F) != 0) {
+            throw new IllegalArgumentException("Unknown flags: " + flags);
+        }
+
+        UrlBuilder url = new UrlBuilder();
+        int code = reader.readByte();
+        if (code >= Scheme.VALUES.length) {
+            throw new IllegalArgumentException("Unknown scheme: " + code);
+        }
+        Scheme scheme = Scheme.VALUES[code];
+        url.scheme(scheme == Scheme.CUSTOM ? reader.readString() : scheme.name);
+
+        if ((flags & FLAG_USER_INFO) != 0) {
+            url.userInfo(reader.readString());
+        }
+        if ((flags & FLAG_HOST) != 0) {
+            url.host(readReference(reader, hosts));
+        }
+        if ((flags & FLAG_PORT) != 0) {
+            url.port(reader.readVarint() - 1);
+        }
+        if ((flags & FLAG_PATH) != 0) {
+            UrlPath path = new UrlPath();
+            for (int count = reader.readVarint(); count > 0; count--) {
+                path.addSegment(reader.readString());
+            }
+            url.path(path.endTag((flags & FLAG_END_TAG) != 0));
+        }
+        if ((flags & FLAG_QUERY) != 0) {
+            UrlQuery query = new UrlQuery();
+            for (int count = reader.readVarint(); count > 0; count--) {
+                String key = readReference(reader, keys);
+                query.add(key, reader.readString());
+            }
+            url.query(query);
+        }
+        if ((flags & FLAG_FRAGMENT) != 0) {
+            url.fragment(reader.readString());
+        }
+        return url;
+    }
+
+    private static String readReference(ByteReader reader, String[] dictionary) throws IOException {
+        int ref = reader.readVarint();
+        if (ref == 0) {
+            return reader.readString();
+        }
+        if (ref > dictionary.length) {
+            throw new IllegalArgumentException("Unknown dictionary reference: " + ref);
+        }
+        return dictionary[ref - 1];
+    }
+
+
+    /**
+     * 可复用的写入缓冲区
+     */
+    static final class ByteWriter {
+        byte[] bytes = new byte[256];
+        int length;
+
+        void writeByte(int b) {
+            ensureCapacity(1);
+            bytes[length++] = (byte) b;
+        }
+
+        void writeVarint(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        /**
+         * 直接编码为UTF-8，不成对的代理字符与String.getBytes("UTF-8")一致，替换为'?'
+         */
+        void writeString(String str) {
+            if (str == null) {
+                writeVarint(0);
+                return;
+            }
+            int len = str.length();
+            int utf8Length = len;
+            for (int i = 0; i < len; i++) {
+                char c = str.charAt(i);
+                if (c >= 0x80) {
+                    if (c < 0x800) {
+                        utf8Length += 1;
+                    } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(str.charAt(i + 1))) {
+                        utf8Length += 2;
+                        i++;
+                    } else if (!Character.isSurrogate(c)) {
+                        utf8Length += 2;
+                    }
+                }
+            }
+            writeVarint(utf8Length + 1);
+            ensureCapacity(utf8Length);
+
+            byte[] bytes = this.bytes;
+            int pos = length;
+            for (int i = 0; i < len; i++) {
+                char c = str.charAt(i);
+                if (c < 0x80) {
+                    bytes[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    bytes[pos++] = (byte) (0xC0 | (c >> 6));
+                    bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(str.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, str.charAt(++i));
+                    bytes[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                    bytes[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    bytes[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    bytes[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    bytes[pos++] = '?';
+                } else {
+                    bytes[pos++] = (byte) (0xE0 | (c >> 12));
+                    bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    bytes[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            length = pos;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+            }
+        }
+    }
+
+    private static abstract class ByteReader {
+        abstract int readByte() throws IOException;
+        abstract String readUtf8(int length) throws IOException;
+
+        final int readVarint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint.");
+        }
+
+        final String readString() throws IOException {
+            int length = readVarint();
+            if (length == 0) {
+                return null;
+            }
+            if (length < 0) {
+                throw new IllegalArgumentException("Malformed string length.");
+            }
+            return readUtf8(length - 1);
+        }
+    }
+
+    private static final class BufferReader extends ByteReader {
+        private final ByteBuffer buffer;
+
+        BufferReader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        int readByte() {
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        String readUtf8(int length) {
+            if (length > buffer.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            String str;
+            if (buffer.hasArray()) {
+                str = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            } else {
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                str = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return str;
+        }
+    }
+
+    private static final class DataReader extends ByteReader {
+        private final DataInput in;
+        private byte[] bytes = new byte[64];
+
+        DataReader(DataInput in) {
+            this.in = in;
+        }
+
+        @Override
+        int readByte() throws IOException {
+            return in.readUnsignedByte();
+        }
+
+        @Override
+        String readUtf8(int length) throws IOException {
+            // 长度来自输入，无法预先知道剩余多少数据：按实际读到的数据逐步扩容，而不是直接按长度分配
+            int read = 0;
+            while (read < length) {
+                if (read == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, (int) Math.min(length, bytes.length * 2L));
+                }
+                int count = Math.min(length, bytes.length) - read;
+                try {
+                    in.readFully(bytes, read, count);
+                } catch (EOFException e) {
+                    throw new IllegalArgumentException("String length " + length + " exceeds the remaining input.", e);
+                }
+                read += count;
+            }
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+package cn.imkarl.urlbuilder;
+
+import java.util.Locale;
+
+/**
+ * URL 规范化，用于缓存KEY、去重等场景
+ * @version imkarl 2017-04
+ *
+ * 含义相同的URL会得到相同的字符串，如：
+ *     HTTP://WWW.Example.com:80/a/./b/../c?b=2&a=1&a=1  ==>  http://www.example.com/a/c?a=1&b=2
+ *
+ * 直接遍历各组成部分写入同一个缓冲区，不修改原UrlBuilder；规则可以单独开关，默认全部开启。
+ * 配置完成后可在多个线程中共享
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc3986#section-6">RFC 3986 - Normalization and Comparison</a>
+ */
+public final class UrlCanonicalizer {
+
+    private static final String DEFAULT_SCHEME = "http";
+
+    private boolean lowercase = true;
+    private boolean dropDefaultPort = true;
+    private boolean removeDotSegments = true;
+    private boolean sortQuery = true;
+    private boolean dedupeQuery = true;
+    private boolean normalizeEncoding = true;
+
+    public UrlCanonicalizer() {
+    }
+
+    /**
+     * scheme和host转换为小写
+     */
+    public UrlCanonicalizer lowercase(boolean lowercase) {
+        this.lowercase = lowercase;
+        return this;
+    }
+    /**
+     * 去除scheme对应的默认端口，如http的80、https的443
+     */
+    public UrlCanonicalizer dropDefaultPort(boolean dropDefaultPort) {
+        this.dropDefaultPort = dropDefaultPort;
+        return this;
+    }
+    /**
+     * 移除path中的"."和".."
+     */
+    public UrlCanonicalizer removeDotSegments(boolean removeDotSegments) {
+        this.removeDotSegments = removeDotSegments;
+        return this;
+    }
+    /**
+     * query按KEY排序，相同KEY的参数保持原有顺序
+     */
+    public UrlCanonicalizer sortQuery(boolean sortQuery) {
+        this.sortQuery = sortQuery;
+        return this;
+    }
+    /**
+     * 去除KEY和VALUE都相同的重复参数，保留第一个
+     */
+    public UrlCanonicalizer dedupeQuery(boolean dedupeQuery) {
+        this.dedupeQuery = dedupeQuery;
+        return this;
+    }
+    /**
+     * 按RFC 3986对各组成部分进行最小编码（不转义unreserved字符，空格编码为"%20"）；
+     * 关闭时与{@link UrlBuilder#build()}的编码方式一致
+     */
+    public UrlCanonicalizer normalizeEncoding(boolean normalizeEncoding) {
+        this.normalizeEncoding = normalizeEncoding;
+        return this;
+    }
+
+
+    /**
+     * 生成规范化的URL
+     */
+    public String canonicalize(UrlBuilder url) {
+        return canonicalizeTo(url, new StringBuilder(128)).toString();
+    }
+
+    /**
+     * 生成规范化的URL并写入out
+     * @return out
+     */
+    public StringBuilder canonicalizeTo(UrlBuilder url, StringBuilder out) {
+        String host = url.getHost();
+        if (Util.isEmpty(host)) {
+            throw new IllegalArgumentException("'host' must be non empty.");
+        }
+
+        String scheme = Util.isEmpty(url.getScheme()) ? DEFAULT_SCHEME : url.getScheme();
+        if (lowercase) {
+            // 没有大写字母时返回原字符串实例
+            scheme = scheme.toLowerCase(Locale.ROOT);
+            host = host.toLowerCase(Locale.ROOT);
+        }
+        out.append(scheme).append("://");
+
+        if (Util.isNotEmpty(url.getUserInfo())) {
+            PercentCodec.encode(url.getUserInfo(), PercentCodec.Component.USERINFO, out).append('@');
+        }
+        PercentCodec.encode(host, PercentCodec.Component.FORM, out);
+        int port = url.getPort();
+        if (port > 0 && !(dropDefaultPort && port == defaultPort(scheme))) {
+            out.append(':').append(port);
+        }
+
+        UrlPath path = url.getPath();
+        PercentCodec.Component pathComponent = normalizeEncoding ? PercentCodec.Component.PATH : PercentCodec.Component.FORM;
+        if (path != null) {
+            path.canonicalTo(out, removeDotSegments, pathComponent);
+        } else {
+            out.append('/');
+        }
+
+        UrlQuery query = url.getQuery();
+        if (query != null && !query.isEmpty()) {
+            out.append('?');
+            query.canonicalTo(out, sortQuery, dedupeQuery,
+                    normalizeEncoding ? PercentCodec.Component.QUERY : PercentCodec.Component.FORM);
+        }
+
+        String fragment = url.getFragment();
+        if (Util.isNotEmpty(fragment)) {
+            PercentCodec.encode(fragment, normalizeEncoding ? PercentCodec.Component.FRAGMENT : PercentCodec.Component.FORM,
+                    out.append('#'));
+        }
+        return out;
+    }
+
+    /**
+     * @return scheme对应的默认端口，未知的scheme返回-1
+     */
+    private static int defaultPort(String scheme) {
+        switch (scheme.toLowerCase(Locale.ROOT)) {
+            case "http":
+            case "ws":
+                return 80;
+            case "https":
+            case "wss":
+                return 443;
+            case "ftp":
+                return 21;
+            default:
+                return -1;
+        }
+    }
+
+}
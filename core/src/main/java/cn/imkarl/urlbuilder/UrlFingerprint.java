@@ -0,0 +1,188 @@
+package cn.imkarl.urlbuilder;
+
+/**
+ * URL 指纹（MurmurHash3 x64 128位，seed为0）
+ * @version imkarl 2017-04
+ *
+ * 作为{@link Appendable}接收构建过程中输出的字符，边编码为UTF-8边计算散列，不生成中间字符串。
+ * 结果与对{@link UrlBuilder#build()}结果的UTF-8字节计算的散列相同，可以与{@link #hash64(CharSequence)}混合使用：
+ *     url.fingerprint64() == UrlFingerprint.hash64(url.build())
+ *
+ * @see <a href="https://github.com/aappleby/smhasher/blob/master/src/MurmurHash3.cpp">MurmurHash3</a>
+ */
+public final class UrlFingerprint implements Appendable {
+
+    private static final long C1 = 0x87c37b91114253d5L;
+    private static final long C2 = 0x4cf5ad432745937fL;
+
+    private long h1;
+    private long h2;
+    /** 当前块中尚未处理的字节（小端），k1为前8字节，k2为后8字节 */
+    private long k1;
+    private long k2;
+    private int blockLength;
+    private long length;
+    /** 等待低位代理字符的高位代理字符 */
+    private char pendingHigh;
+
+    UrlFingerprint() {
+    }
+
+    /**
+     * @return str的UTF-8字节的64位散列（128位散列的前64位）
+     */
+    public static long hash64(CharSequence str) {
+        UrlFingerprint fingerprint = new UrlFingerprint();
+        fingerprint.append(str);
+        return fingerprint.hash64();
+    }
+    /**
+     * @return str的UTF-8字节的128位散列，{h1, h2}
+     */
+    public static long[] hash128(CharSequence str) {
+        UrlFingerprint fingerprint = new UrlFingerprint();
+        fingerprint.append(str);
+        return fingerprint.hash128();
+    }
+
+
+    @Override
+    public UrlFingerprint append(CharSequence csq) {
+        if (csq == null) {
+            csq = "null";
+        }
+        return append(csq, 0, csq.length());
+    }
+    @Override
+    public UrlFingerprint append(CharSequence csq, int start, int end) {
+        if (csq == null) {
+            csq = "null";
+        }
+        for (int i = start; i < end; i++) {
+            append(csq.charAt(i));
+        }
+        return this;
+    }
+    @Override
+    public UrlFingerprint append(char c) {
+        if (pendingHigh != 0) {
+            char high = pendingHigh;
+            pendingHigh = 0;
+            if (Character.isLowSurrogate(c)) {
+                int codePoint = Character.toCodePoint(high, c);
+                addByte(0xF0 | (codePoint >> 18));
+                addByte(0x80 | ((codePoint >> 12) & 0x3F));
+                addByte(0x80 | ((codePoint >> 6) & 0x3F));
+                addByte(0x80 | (codePoint & 0x3F));
+                return this;
+            }
+            // 不成对的代理字符，与String.getBytes("UTF-8")一致，替换为'?'
+            addByte('?');
+        }
+
+        if (c < 0x80) {
+            addByte(c);
+        } else if (c < 0x800) {
+            addByte(0xC0 | (c >> 6));
+            addByte(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            pendingHigh = c;
+        } else if (Character.isLowSurrogate(c)) {
+            addByte('?');
+        } else {
+            addByte(0xE0 | (c >> 12));
+            addByte(0x80 | ((c >> 6) & 0x3F));
+            addByte(0x80 | (c & 0x3F));
+        }
+        return this;
+    }
+
+    private void addByte(int b) {
+        long value = b & 0xFFL;
+        if (blockLength < 8) {
+            k1 |= value << (blockLength * 8);
+        } else {
+            k2 |= value << ((blockLength - 8) * 8);
+        }
+        length++;
+        if (++blockLength == 16) {
+            mixBlock();
+        }
+    }
+
+    private void mixBlock() {
+        h1 ^= mixK1(k1);
+        h1 = Long.rotateLeft(h1, 27);
+        h1 += h2;
+        h1 = h1 * 5 + 0x52dce729;
+
+        h2 ^= mixK2(k2);
+        h2 = Long.rotateLeft(h2, 31);
+        h2 += h1;
+        h2 = h2 * 5 + 0x38495ab5;
+
+        k1 = 0;
+        k2 = 0;
+        blockLength = 0;
+    }
+
+    private static long mixK1(long k1) {
+        k1 *= C1;
+        k1 = Long.rotateLeft(k1, 31);
+        k1 *= C2;
+        return k1;
+    }
+    private static long mixK2(long k2) {
+        k2 *= C2;
+        k2 = Long.rotateLeft(k2, 33);
+        k2 *= C1;
+        return k2;
+    }
+
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+
+    long hash64() {
+        finish();
+        return h1;
+    }
+    long[] hash128() {
+        finish();
+        return new long[]{h1, h2};
+    }
+
+    /**
+     * 处理剩余的字节，输入结束后调用一次
+     */
+    private void finish() {
+        if (pendingHigh != 0) {
+            // 结尾的高位代理字符没有等到低位代理字符，与String.getBytes("UTF-8")一致，替换为'?'
+            pendingHigh = 0;
+            addByte('?');
+        }
+
+        if (blockLength > 8) {
+            h2 ^= mixK2(k2);
+        }
+        if (blockLength > 0) {
+            h1 ^= mixK1(k1);
+        }
+
+        h1 ^= length;
+        h2 ^= length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix64(h1);
+        h2 = fmix64(h2);
+        h1 += h2;
+        h2 += h1;
+    }
+
+}
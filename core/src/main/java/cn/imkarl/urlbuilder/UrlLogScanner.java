@@ -0,0 +1,380 @@
+package cn.imkarl.urlbuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 并行扫描日志文件，从每一行中取出URL
+ * @version imkarl 2017-04
+ *
+ * 文件按行对齐切分为多个块，每块通过FileChannel.map映射后在ForkJoinPool中并行处理；
+ * 直接在UTF-8字节上查找和切分URL（{@link UrlTokenizer}），不经过CharsetDecoder，也不为每一行创建String。
+ * 每块不能超过2GB（MappedByteBuffer的限制），文件大小不受限制；映射的内存在缓冲区被GC回收时释放
+ */
+public final class UrlLogScanner {
+
+    /** 默认每块的大小 */
+    public static final long DEFAULT_CHUNK_SIZE = 32L << 20;
+
+    /**
+     * 在一行中查找URL
+     */
+    public interface Extractor {
+        /**
+         * @param line 一行的内容（不含行尾的"\r\n"）
+         * @return URL在[start, end)中的起始位置，该行没有URL时返回-1；URL到空白字符或'"'为止
+         */
+        int find(byte[] line, int start, int end);
+    }
+
+    /**
+     * 访问日志（Common/Combined Log Format）中第一个引号内请求行的目标，
+     * 如{@code 127.0.0.1 - - [10/Apr/2017:13:55:36 +0800] "GET /s?wd=test HTTP/1.1" 200 2326}中的"/s?wd=test"
+     */
+    public static final Extractor REQUEST_LINE = new Extractor() {
+        @Override
+        public int find(byte[] line, int start, int end) {
+            int pos = start;
+            while (pos < end && line[pos] != '"') {
+                pos++;
+            }
+            // 跳过请求方法，没有请求方法（如"-"）时视为没有URL
+            pos++;
+            while (pos < end && line[pos] != ' ' && line[pos] != '"') {
+                pos++;
+            }
+            if (pos >= end || line[pos] == '"') {
+                return -1;
+            }
+            while (pos < end && line[pos] == ' ') {
+                pos++;
+            }
+            return pos < end && line[pos] != '"' ? pos : -1;
+        }
+    };
+
+    /** 每行一个URL，忽略行首的空白 */
+    public static final Extractor WHOLE_LINE = new Extractor() {
+        @Override
+        public int find(byte[] line, int start, int end) {
+            int pos = start;
+            while (pos < end && (line[pos] & 0xFF) <= ' ') {
+                pos++;
+            }
+            return pos < end ? pos : -1;
+        }
+    };
+
+    /**
+     * 接收切分事件，每个块使用单独的实例，因此不需要是线程安全的
+     */
+    public static abstract class Visitor extends UrlTokenizer.Visitor {
+        /**
+         * 找到一个URL，之后回调的位置均为bytes中的下标
+         * @param bytes 只在本次URL的回调期间有效（会被下一行复用）
+         * @return 是否需要切分该URL；返回false时不再回调该URL的各组成部分和{@link #end()}
+         */
+        public boolean begin(byte[] bytes, int start, int end) {
+            return true;
+        }
+        /**
+         * 当前URL切分完成
+         */
+        public void end() {
+        }
+    }
+
+    public interface Factory<V extends Visitor> {
+        V create();
+    }
+
+    /**
+     * 接收解析后的URL
+     */
+    public interface Sink {
+        /**
+         * 在多个线程中同时调用，需要是线程安全的
+         */
+        void accept(UrlBuilder url);
+    }
+
+    private Extractor extractor = REQUEST_LINE;
+    private long chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * 默认为{@link #REQUEST_LINE}
+     */
+    public UrlLogScanner extractor(Extractor extractor) {
+        if (extractor == null) {
+            throw new IllegalArgumentException("'extractor' must be non null.");
+        }
+        this.extractor = extractor;
+        return this;
+    }
+    /**
+     * 每块的大致大小，实际会延伸到下一行的开头
+     */
+    public UrlLogScanner chunkSize(long chunkSize) {
+        if (chunkSize <= 0 || chunkSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Illegal chunk size: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+
+    /**
+     * 并行扫描，每个块由factory创建一个visitor（在调用线程中创建）
+     * @return 按在文件中的顺序，每个块对应的visitor，可以用于汇总结果
+     */
+    public <V extends Visitor> List<V> scan(File file, Factory<V> factory, ForkJoinPool pool) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long[] bounds = split(channel, channel.size(), chunkSize);
+            List<V> visitors = new ArrayList<>(bounds.length - 1);
+            for (int i = 1; i < bounds.length; i++) {
+                visitors.add(factory.create());
+            }
+            if (!visitors.isEmpty()) {
+                pool.invoke(new ScanTask(this, channel, bounds, visitors, 0, visitors.size()));
+            }
+            return visitors;
+        } catch (RuntimeException e) {
+            // ForkJoinTask会包装任务中抛出的受检异常
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 并行扫描，将每个URL解析为UrlBuilder（与{@link UrlBuilder#parse(String)}的结果一致）
+     */
+    public void scan(File file, final Sink sink, ForkJoinPool pool) throws IOException {
+        scan(file, new Factory<Visitor>() {
+            @Override
+            public Visitor create() {
+                return new ParseVisitor(sink);
+            }
+        }, pool);
+    }
+
+
+    /**
+     * 切分为按行对齐的块
+     * @return 各块的边界，第i块为[bounds[i], bounds[i+1])
+     */
+    private static long[] split(FileChannel channel, long size, long chunkSize) throws IOException {
+        long[] bounds = new long[(int) ((size + chunkSize - 1) / chunkSize) + 1];
+        int count = 0;
+        ByteBuffer window = ByteBuffer.allocate(8192);
+        long next = chunkSize;
+        while (next < size) {
+            long bound = nextLine(channel, next - 1, size, window);
+            if (bound >= size) {
+                break;
+            }
+            bounds[++count] = bound;
+            next = bound + chunkSize;
+        }
+        if (size > 0) {
+            bounds[++count] = size;
+        }
+        return Arrays.copyOf(bounds, count + 1);
+    }
+
+    /**
+     * @return from之后（包括from）第一个'\n'的下一个位置，不存在时返回size
+     */
+    private static long nextLine(FileChannel channel, long from, long size, ByteBuffer window) throws IOException {
+        long position = from;
+        while (position < size) {
+            window.clear();
+            int read = channel.read(window, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (window.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * 处理一个块中的每一行，行的内容复制到可复用的数组中
+     */
+    private void scanChunk(MappedByteBuffer buffer, Visitor visitor) {
+        byte[] line = new byte[256];
+        int limit = buffer.limit();
+        int pos = 0;
+        while (pos < limit) {
+            int length = 0;
+            byte b;
+            while (pos < limit && (b = buffer.get(pos)) != '\n') {
+                if (length == line.length) {
+                    line = Arrays.copyOf(line, length * 2);
+                }
+                line[length++] = b;
+                pos++;
+            }
+            pos++;
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+
+            int start = extractor.find(line, 0, length);
+            if (start < 0) {
+                continue;
+            }
+            int end = start;
+            while (end < length && (line[end] & 0xFF) > ' ' && line[end] != '"') {
+                end++;
+            }
+            if (end > start && visitor.begin(line, start, end)) {
+                UrlTokenizer.tokenize(line, start, end - start, visitor);
+                visitor.end();
+            }
+        }
+    }
+
+    private static final class ScanTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final UrlLogScanner scanner;
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final List<? extends Visitor> visitors;
+        private final int from;
+        private final int to;
+
+        ScanTask(UrlLogScanner scanner, FileChannel channel, long[] bounds, List<? extends Visitor> visitors, int from, int to) {
+            this.scanner = scanner;
+            this.channel = channel;
+            this.bounds = bounds;
+            this.visitors = visitors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                long start = bounds[from];
+                long length = bounds[from + 1] - start;
+                if (length > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Line too long at " + start);
+                }
+                MappedByteBuffer buffer;
+                try {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                scanner.scanChunk(buffer, visitors.get(from));
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ScanTask(scanner, channel, bounds, visitors, from, middle),
+                    new ScanTask(scanner, channel, bounds, visitors, middle, to));
+        }
+    }
+
+
+    /**
+     * 解析为UrlBuilder：先将URL的UTF-8字节解码到可复用的缓冲区，再交给{@link UrlParser}
+     */
+    private static final class ParseVisitor extends Visitor {
+        private final Sink sink;
+        private final Utf8Chars chars = new Utf8Chars();
+
+        ParseVisitor(Sink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public boolean begin(byte[] bytes, int start, int end) {
+            sink.accept(UrlParser.parse(chars.decode(bytes, start, end)));
+            return false;
+        }
+    }
+
+    /**
+     * 可复用的UTF-8解码结果，非法的字节序列（包括超长编码和代理字符）解码为U+FFFD，与new String(bytes, UTF_8)一致；
+     * subSequence()直接返回String
+     */
+    private static final class Utf8Chars implements CharSequence {
+        private char[] chars = new char[256];
+        private int length;
+
+        Utf8Chars decode(byte[] bytes, int start, int end) {
+            if (chars.length < end - start) {
+                chars = new char[Math.max(end - start, chars.length * 2)];
+            }
+            int n = 0;
+            int i = start;
+            while (i < end) {
+                int b = bytes[i++] & 0xFF;
+                if (b < 0x80) {
+                    chars[n++] = (char) b;
+                    continue;
+                }
+                int extra = Util.utf8Extra(b);
+                if (extra < 0) {
+                    chars[n++] = '\uFFFD';
+                    continue;
+                }
+                int codePoint = Util.utf8LeadBits(b, extra);
+                int second = -1;
+                int valid = 0;
+                for (int next = i; valid < extra && next < end && (bytes[next] & 0xC0) == 0x80; valid++, next++) {
+                    if (valid == 0) {
+                        second = bytes[next] & 0xFF;
+                    }
+                    codePoint = (codePoint << 6) | (bytes[next] & 0x3F);
+                }
+                if (valid < extra || !Util.isValidUtf8(codePoint, extra)) {
+                    i += Util.utf8MalformedLength(b, second, extra, valid, codePoint) - 1;
+                    chars[n++] = '\uFFFD';
+                    continue;
+                }
+                i += extra;
+                // 4字节的UTF-8解码为2个char，不会超过字节数
+                n += Character.toChars(codePoint, chars, n);
+            }
+            length = n;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+        @Override
+        public char charAt(int index) {
+            return chars[index];
+        }
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+
+}
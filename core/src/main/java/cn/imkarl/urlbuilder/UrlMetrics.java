@@ -0,0 +1,127 @@
+package cn.imkarl.urlbuilder;
+
+import java.util.Arrays;
+
+/**
+ * 解析、构建、编码等操作的耗时统计
+ * @version imkarl 2017-04
+ *
+ * 默认关闭：没有注册任何监听器时，每次操作只多一次volatile读，不调用System.nanoTime()。
+ * 注册监听器后，每次操作完成时回调，可以导出到自己的监控系统（计数、直方图等）；
+ * Java 11+ 还可以通过{@link #enableFlightRecorder()}输出为JDK Flight Recorder事件
+ */
+public final class UrlMetrics {
+
+    /**
+     * 统计的操作
+     */
+    public enum Operation {
+        /** {@link UrlBuilder#parse(String)}、{@link UrlBuilder#parseLazy(String)} */
+        PARSE,
+        /** {@link UrlBuilder#build()} */
+        BUILD,
+        /** {@link UrlBuilder#toURI()}、{@link UrlBuilder#toURIOrThrow()} */
+        TO_URI,
+        /** {@link UrlBuilder#toURL()}、{@link UrlBuilder#toURLOrThrow()} */
+        TO_URL,
+        /** {@link UrlQuery#parse(String)} */
+        QUERY_PARSE,
+        /** {@link UrlQuery#build()}、{@link UrlQuery#build(boolean)} */
+        QUERY_BUILD,
+        /** {@link UrlBuilder#encode(String)} */
+        ENCODE,
+        /** {@link UrlBuilder#decode(String)} */
+        DECODE
+    }
+
+    /**
+     * 接收统计结果，在执行操作的线程中同步回调，需要是线程安全的，并且应尽快返回
+     */
+    public interface Listener {
+        /**
+         * @param nanos 耗时（纳秒）
+         * @param length 输入字符串的长度；BUILD、TO_URI、TO_URL为结果的长度
+         * @param components 路径段与query参数的数量之和（延迟解析尚未解码的部分不计入）；ENCODE、DECODE为0
+         */
+        void onOperation(Operation operation, long nanos, int length, int components);
+    }
+
+    private static final Listener[] NONE = new Listener[0];
+
+    /** 写时复制，读取时不加锁 */
+    private static volatile Listener[] listeners = NONE;
+
+    private UrlMetrics() {
+    }
+
+    public static synchronized void addListener(Listener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("'listener' must be non null.");
+        }
+        Listener[] current = listeners;
+        Listener[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = listener;
+        listeners = updated;
+    }
+
+    public static synchronized void removeListener(Listener listener) {
+        Listener[] current = listeners;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == listener) {
+                Listener[] updated = new Listener[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                listeners = updated;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 注册输出JDK Flight Recorder事件（cn.imkarl.urlbuilder.Operation）的监听器，重复调用只注册一次。
+     * 事件默认不记录，需要在录制配置中开启，如{@code -XX:StartFlightRecording:settings=profile,+cn.imkarl.urlbuilder.Operation#enabled=true}
+     * 或在JMC中勾选；未开启时监听器只检查一次事件类型的状态
+     * @return 当前JVM不支持（Java 11以下）时返回false
+     */
+    public static synchronized boolean enableFlightRecorder() {
+        Listener listener = FlightRecorderEvents.listener();
+        if (listener == null) {
+            return false;
+        }
+        for (Listener registered : listeners) {
+            if (registered == listener) {
+                return true;
+            }
+        }
+        addListener(listener);
+        return true;
+    }
+
+    public static synchronized void disableFlightRecorder() {
+        Listener listener = FlightRecorderEvents.listener();
+        if (listener != null) {
+            removeListener(listener);
+        }
+    }
+
+
+    /**
+     * 是否需要统计，为false时不需要计时
+     */
+    static boolean enabled() {
+        return listeners.length != 0;
+    }
+
+    /**
+     * 回调所有监听器，监听器抛出的异常不影响操作本身
+     */
+    static void record(Operation operation, long nanos, int length, int components) {
+        for (Listener listener : listeners) {
+            try {
+                listener.onOperation(operation, nanos, length, components);
+            } catch (RuntimeException ignored) {
+            }
+        }
+    }
+
+}
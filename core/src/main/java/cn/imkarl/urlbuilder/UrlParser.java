@@ -0,0 +1,291 @@
+package cn.imkarl.urlbuilder;
+
+/**
+ * URL 解析器（RFC 3986，单次从左到右扫描）
+ * @version imkarl 2017-04
+ *
+ * 不依赖正则，也不经过中间的Uri对象，由{@link UrlTokenizer}切分后直接将各组成部分填充到{@link UrlBuilder}
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc3986#section-3">RFC 3986 - Syntax Components</a>
+ */
+final class UrlParser extends UrlTokenizer.Visitor {
+
+    private final CharSequence url;
+    private final UrlBuilder builder;
+    private final boolean lazy;
+
+    private int pathStart;
+    private int pathEnd;
+    private int queryStart = -1;
+    private int queryEnd = -1;
+    private UrlPath path;
+    private UrlQuery query;
+
+    private UrlParser(CharSequence url, UrlBuilder builder, boolean lazy) {
+        this.url = url;
+        this.builder = builder;
+        this.lazy = lazy;
+    }
+
+    static UrlBuilder parse(CharSequence url) {
+        return parse(url, false);
+    }
+
+    /**
+     * 只解析scheme、authority和fragment，path和query保留原始字符串，首次访问时才解码
+     * @see UrlBuilder#parseLazy(String)
+     */
+    static UrlBuilder parseLazy(String url) {
+        return parse(url, true);
+    }
+
+    /**
+     * @param url lazy为true时必须是String
+     */
+    private static UrlBuilder parse(CharSequence url, boolean lazy) {
+        UrlBuilder builder = new UrlBuilder();
+        if (url == null) {
+            return builder;
+        }
+
+        UrlParser parser = new UrlParser(url, builder, lazy);
+        UrlTokenizer.tokenize(url, parser);
+        if (lazy) {
+            builder.raw(url.toString(), parser.pathStart, parser.pathEnd, parser.queryStart, parser.queryEnd);
+        } else {
+            builder.path(parser.path);
+            if (parser.queryStart != -1) {
+                builder.query(parser.query);
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * 按'/'切分路径段，忽略空的路径段
+     * @return 没有任何路径段且不以'/'结尾时返回null
+     */
+    static UrlPath decodePath(String url, int start, int end) {
+        UrlParser parser = new UrlParser(url, null, false);
+        UrlTokenizer.tokenizePath(url, start, end, parser);
+        return parser.path;
+    }
+
+    /**
+     * 按'&'切分参数，没有'='的参数视为空值
+     * @return 没有任何参数时返回null
+     */
+    static UrlQuery decodeQuery(String url, int start, int end) {
+        UrlParser parser = new UrlParser(url, null, false);
+        UrlTokenizer.tokenizeQuery(url, start, end, parser);
+        return parser.query;
+    }
+
+    @Override
+    public void scheme(int start, int end) {
+        builder.scheme(text(start, end));
+    }
+
+    @Override
+    public void userInfo(int start, int end) {
+        builder.userInfo(PercentCodec.decode(text(start, end), PercentCodec.Component.USERINFO));
+    }
+
+    @Override
+    public void host(int start, int end) {
+        builder.host(Util.decode(text(start, end)));
+    }
+
+    @Override
+    public void port(int start, int end) {
+        builder.port(parsePort(start, end));
+    }
+
+    @Override
+    public boolean path(int start, int end) {
+        pathStart = start;
+        pathEnd = end;
+        if (lazy) {
+            return false;
+        }
+        if (end > start && url.charAt(end - 1) == '/') {
+            path = new UrlPath();
+            path.endTag(true);
+        }
+        return true;
+    }
+
+    @Override
+    public void segment(int start, int end) {
+        if (path == null) {
+            path = new UrlPath();
+        }
+        path.append(Util.decode(text(start, end)));
+    }
+
+    @Override
+    public boolean query(int start, int end) {
+        queryStart = start;
+        queryEnd = end;
+        return !lazy;
+    }
+
+    @Override
+    public void param(int keyStart, int keyEnd, int valueStart, int valueEnd) {
+        String key = Util.decode(text(keyStart, keyEnd));
+        String value = valueStart == -1 ? "" : Util.decode(text(valueStart, valueEnd));
+        if (Util.isNotEmpty(key)) {
+            if (query == null) {
+                query = new UrlQuery();
+            }
+            query.append(key, value);
+        }
+    }
+
+    @Override
+    public void fragment(int start, int end) {
+        builder.fragment(Util.decode(text(start, end)));
+    }
+
+    /**
+     * 与String.substring一致；url为其他CharSequence时由subSequence()创建String
+     */
+    private String text(int start, int end) {
+        return url.subSequence(start, end).toString();
+    }
+
+    private int parsePort(int start, int end) {
+        if (start >= end) {
+            return -1;
+        }
+        int port = 0;
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            port = port * 10 + (c - '0');
+            if (port > 0xFFFF) {
+                return -1;
+            }
+        }
+        return port;
+    }
+
+    /**
+     * 原始的path或query是否可以在构建时原样输出，要求：
+     *   只含RFC 3986允许的字符，'%'之后都是两位十六进制数，且转义的字节是合法的UTF-8；
+     *   path为空或以'/'开头，且没有空的路径段；
+     *   query的每个参数都有非空的KEY和'='；
+     *   每个路径段、KEY、VALUE的首尾不是解码后会被去除的字符（'+'、"%00"-"%20"，路径段还包括"%2F"）。
+     * 满足时原样输出与解码后再编码表示的是同一个URL（编码形式可能不同，如"%20"和"+"）
+     */
+    static boolean isSpliceable(String url, int start, int end, boolean query) {
+        if (!query && start < end && url.charAt(start) != '/') {
+            return false;
+        }
+        int partStart = start;
+        boolean equation = false;
+        for (int i = start; i < end; i++) {
+            char c = url.charAt(i);
+            if (c == '%') {
+                int length = escapeLength(url, i, end);
+                if (length < 0) {
+                    return false;
+                }
+                i += length - 1;
+            } else if (query && c == '&') {
+                if (!equation || !isTrimmed(url, partStart, i, true)) {
+                    return false;
+                }
+                partStart = i + 1;
+                equation = false;
+            } else if (query && c == '=') {
+                if (!equation) {
+                    if (i == partStart || !isTrimmed(url, partStart, i, true)) {
+                        return false;
+                    }
+                    partStart = i + 1;
+                    equation = true;
+                }
+            } else if (!query && c == '/') {
+                if (i > start && (url.charAt(i - 1) == '/' || !isTrimmed(url, partStart, i, false))) {
+                    return false;
+                }
+                partStart = i + 1;
+            } else if (c >= 0x80 || !RAW_SAFE[c]) {
+                return false;
+            }
+        }
+        if (query) {
+            return start == end || (equation && isTrimmed(url, partStart, end, true));
+        }
+        return isTrimmed(url, partStart, end, false);
+    }
+
+    /**
+     * @return 从'%'开始的转义序列（多字节UTF-8时包括之后的后续字节）的长度，不合法时返回-1
+     */
+    private static int escapeLength(String url, int start, int end) {
+        int b = hexByte(url, start, end);
+        if (b < 0x80) {
+            return b < 0 ? -1 : 3;
+        }
+        int extra = Util.utf8Extra(b);
+        if (extra < 0) {
+            return -1;
+        }
+        int codePoint = Util.utf8LeadBits(b, extra);
+        for (int n = 1; n <= extra; n++) {
+            int cb = hexByte(url, start + n * 3, end);
+            if ((cb & 0xC0) != 0x80) {
+                return -1;
+            }
+            codePoint = (codePoint << 6) | (cb & 0x3F);
+        }
+        return Util.isValidUtf8(codePoint, extra) ? 3 * (extra + 1) : -1;
+    }
+
+    /**
+     * 路径段、KEY或VALUE[start, end)解码后首尾是否不会被去除（与{@link UrlPath}、{@link UrlQuery}添加时的处理一致）
+     */
+    private static boolean isTrimmed(String url, int start, int end, boolean query) {
+        if (start >= end) {
+            return true;
+        }
+        int first = url.charAt(start) == '%' ? hexByte(url, start, end) : url.charAt(start);
+        int last = end - 3 >= start && url.charAt(end - 3) == '%' ? hexByte(url, end - 3, end) : url.charAt(end - 1);
+        return !isTrimmable(first, query) && !isTrimmable(last, query);
+    }
+    private static boolean isTrimmable(int c, boolean query) {
+        // '+'解码为空格
+        return c <= ' ' || c == '+' || (!query && c == '/');
+    }
+
+    /**
+     * @return url中index处"%XX"表示的字节，不合法时返回-1
+     */
+    private static int hexByte(String url, int index, int end) {
+        if (index + 2 >= end || url.charAt(index) != '%' || !isHex(url.charAt(index + 1)) || !isHex(url.charAt(index + 2))) {
+            return -1;
+        }
+        return Character.digit(url.charAt(index + 1), 16) << 4 | Character.digit(url.charAt(index + 2), 16);
+    }
+
+    /** 可以原样出现在path和query中的字符：unreserved / sub-delims / ":" / "@" / "/" / "?" */
+    private static final boolean[] RAW_SAFE = new boolean[128];
+    static {
+        String safe = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789-._~!$&'()*+,;=:@/?";
+        for (int i = 0; i < safe.length(); i++) {
+            RAW_SAFE[safe.charAt(i)] = true;
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+    private static boolean isHex(char c) {
+        return isDigit(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+}
@@ -0,0 +1,543 @@
+package cn.imkarl.urlbuilder;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * URL 路径段
+ * @version imkarl 2017-04
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/URL#Internationalized_URL">Internationalized URL</a>
+ */
+public class UrlPath {
+
+    /** 表示整数路径段（按引用比较），实际的值保存在numbers中 */
+    private static final String NUMBER = new String("#");
+
+    /*
+     * 路径段使用并行数组存储，segments为null表示从未添加过路径段：
+     *   segments   路径段，整数路径段为NUMBER
+     *   numbers    整数路径段的值，首次添加整数路径段时才分配
+     *   verbatim   是否为已编码的路径段（构建时原样输出），首次添加已编码的路径段时才分配
+     *   view       {@link #getSegments()}返回的列表视图，修改会直接反映到数组中
+     */
+    private String[] segments;
+    private long[] numbers;
+    private boolean[] verbatim;
+    private int count;
+    private SegmentList view;
+    private boolean endTag;
+    /** 修改次数，供{@link UrlBuilder}判断解析后是否被修改过，同时用于判断编码结果的缓存是否有效 */
+    int modCount;
+    /** URL编码后的结果，encodedModCount与modCount不一致时失效 */
+    private String encoded;
+    private int encodedModCount;
+
+    public UrlPath() {
+    }
+
+    /**
+     * 添加到path最后面
+     */
+    public UrlPath append(String segment) {
+        add(segment, false);
+        return this;
+    }
+
+    /**
+     * 添加到path最前面
+     */
+    public UrlPath before(String segment) {
+        add(segment, true);
+        return this;
+    }
+
+    /**
+     * 添加整数路径段到path最后面；不转换为String，构建时直接写入数字
+     */
+    public UrlPath append(long segment) {
+        int index = insert(count);
+        if (numbers == null) {
+            numbers = new long[segments.length];
+        }
+        segments[index] = NUMBER;
+        numbers[index] = segment;
+        return this;
+    }
+
+    /**
+     * 添加已编码的路径到path最后面，可以包含多个以'/'分隔的路径段（忽略空的路径段）；构建时原样输出，不再编码
+     * @throws IllegalArgumentException 包含路径段中不允许的字符，或者存在非法的转义序列
+     */
+    public UrlPath appendEncoded(String path) {
+        return appendEncoded(path, true);
+    }
+    /**
+     * 添加已编码的路径到path最后面
+     * @param validate 是否检查编码是否合法，来源可信时可以关闭
+     * @see #appendEncoded(String)
+     */
+    public UrlPath appendEncoded(String path, boolean validate) {
+        if (path == null) {
+            return this;
+        }
+        int length = path.length();
+        if (validate) {
+            // 先检查全部路径段，不合法时不添加任何路径段
+            for (int start = 0, end; start < length; start = end + 1) {
+                end = path.indexOf('/', start);
+                if (end < 0) {
+                    end = length;
+                }
+                int invalid = PercentCodec.indexOfInvalidEncoding(path, start, end, PercentCodec.Component.PATH);
+                if (invalid >= 0) {
+                    throw new IllegalArgumentException("Illegal character in encoded path at index " + invalid + ": " + path);
+                }
+            }
+        }
+        for (int start = 0, end; start < length; start = end + 1) {
+            end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end == start) {
+                continue;
+            }
+            int index = insert(count);
+            if (verbatim == null) {
+                verbatim = new boolean[segments.length];
+            }
+            segments[index] = start == 0 && end == length ? path : path.substring(start, end);
+            verbatim[index] = true;
+        }
+        return this;
+    }
+
+    private void add(String segment, boolean before) {
+        segment = normalizeSegment(segment);
+        if (segment == null) {
+            return;
+        }
+
+        int index = insert(before ? 0 : count);
+        segments[index] = segment;
+    }
+
+    /**
+     * 添加到path最后面，不做任何处理
+     */
+    void addSegment(String segment) {
+        int index = insert(count);
+        segments[index] = segment;
+    }
+
+    /**
+     * 在index处腾出一个位置（之后的路径段后移）
+     * @return index
+     */
+    private int insert(int index) {
+        if (segments == null) {
+            segments = new String[8];
+        } else if (count == segments.length) {
+            segments = Arrays.copyOf(segments, count * 2);
+        }
+        if (numbers != null && numbers.length < segments.length) {
+            numbers = Arrays.copyOf(numbers, segments.length);
+        }
+        if (verbatim != null && verbatim.length < segments.length) {
+            verbatim = Arrays.copyOf(verbatim, segments.length);
+        }
+        if (index < count) {
+            System.arraycopy(segments, index, segments, index + 1, count - index);
+            if (numbers != null) {
+                System.arraycopy(numbers, index, numbers, index + 1, count - index);
+            }
+            if (verbatim != null) {
+                System.arraycopy(verbatim, index, verbatim, index + 1, count - index);
+            }
+        }
+        if (verbatim != null) {
+            verbatim[index] = false;
+        }
+        count++;
+        modCount++;
+        return index;
+    }
+
+    private void delete(int index) {
+        System.arraycopy(segments, index + 1, segments, index, count - index - 1);
+        if (numbers != null) {
+            System.arraycopy(numbers, index + 1, numbers, index, count - index - 1);
+        }
+        if (verbatim != null) {
+            System.arraycopy(verbatim, index + 1, verbatim, index, count - index - 1);
+        }
+        segments[--count] = null;
+        modCount++;
+    }
+
+    /**
+     * @return 第index个路径段，整数路径段在此时才转换为String，已编码的路径段在此时才解码
+     */
+    private String segment(int index) {
+        String segment = segments[index];
+        if (segment == NUMBER) {
+            return String.valueOf(numbers[index]);
+        }
+        return isVerbatim(index) ? Util.decode(segment) : segment;
+    }
+
+    /**
+     * @return 第index个路径段已编码的原文（构建时原样输出），不是已编码添加的路径段时返回null
+     */
+    String verbatimSegment(int index) {
+        return isVerbatim(index) ? segments[index] : null;
+    }
+
+    private boolean isVerbatim(int index) {
+        return verbatim != null && verbatim[index];
+    }
+
+    /**
+     * 写入第index个路径段，整数路径段直接写入数字
+     * @param encode 是否编码；已编码的路径段此时原样写入，否则写入解码后的内容
+     */
+    private void appendSegment(Appendable out, int index, boolean encode) throws IOException {
+        String segment = segments[index];
+        if (segment == NUMBER) {
+            Util.appendNumber(out, numbers[index]);
+        } else if (isVerbatim(index)) {
+            out.append(encode ? segment : Util.decode(segment));
+        } else if (encode) {
+            PercentCodec.encode(segment, PercentCodec.Component.FORM, out);
+        } else {
+            out.append(segment);
+        }
+    }
+
+    /**
+     * 去除首尾空白和首尾的'/'
+     * @return 如果没有任何内容，则返回null
+     */
+    static String normalizeSegment(String segment) {
+        if (Util.isEmpty(segment) || "/".equals(segment)) {
+            return null;
+        }
+
+        segment = segment.trim();
+        if (segment.charAt(0) == '/') {
+            segment = segment.substring(1);
+        }
+        if (segment.length() > 0 && segment.charAt(segment.length()-1) == '/') {
+            segment = segment.substring(0, segment.length()-1);
+        }
+        return segment.trim();
+    }
+
+    /**
+     * 清空所有路径段，保留已分配的容量，可以继续复用当前对象
+     */
+    public UrlPath clear() {
+        if (segments != null) {
+            Arrays.fill(segments, 0, count, null);
+        }
+        count = 0;
+        endTag = false;
+        modCount++;
+        return this;
+    }
+
+    public UrlPath endTag(boolean endTag) {
+        if (this.endTag != endTag) {
+            modCount++;
+        }
+        this.endTag = endTag;
+        return this;
+    }
+
+    /**
+     * @return 路径段的数量
+     */
+    int size() {
+        return count;
+    }
+
+    /**
+     * @return 如果构建结果为空字符串""，则返回true
+     */
+    public boolean isEmpty() {
+        return count == 0 && !endTag;
+    }
+
+
+    /**
+     * 构建path，前面带'/'（对segment进行URL编码处理）
+     * @return 如果没有任何内容，则返回null
+     */
+    public String build() {
+        return build(true);
+    }
+    /**
+     * 构建path，前面带'/'
+     * @param encode 是否需要对segment进行URL编码处理
+     * @return 如果没有任何内容，则返回空字符串""
+     */
+    public String build(boolean encode) {
+        if (isEmpty()) {
+            return "";
+        }
+        if (!encode) {
+            return buildTo(new StringBuilder(), false).toString();
+        }
+        if (!isEncodedValid()) {
+            encoded = buildTo(new StringBuilder(encodedLength()), true).toString();
+            encodedModCount = modCount;
+        }
+        return encoded;
+    }
+
+    private boolean isEncodedValid() {
+        return encoded != null && encodedModCount == modCount;
+    }
+
+    /**
+     * 构建path并写入out（对segment进行URL编码处理）
+     * @return out
+     */
+    public StringBuilder buildTo(StringBuilder out) {
+        return buildTo(out, true);
+    }
+    /**
+     * 构建path并写入out
+     * @param encode 是否需要对segment进行URL编码处理
+     * @return out
+     */
+    public StringBuilder buildTo(StringBuilder out, boolean encode) {
+        try {
+            buildTo((Appendable) out, encode);
+        } catch (IOException e) {
+            // StringBuilder不会抛出IOException
+            throw new IllegalStateException(e);
+        }
+        return out;
+    }
+    /**
+     * 构建path并写入out（对segment进行URL编码处理）
+     */
+    public void buildTo(Appendable out) throws IOException {
+        buildTo(out, true);
+    }
+    /**
+     * 构建path并写入out
+     * @param encode 是否需要对segment进行URL编码处理
+     */
+    public void buildTo(Appendable out, boolean encode) throws IOException {
+        if (encode && isEncodedValid()) {
+            out.append(encoded);
+            return;
+        }
+        for (int i = 0; i < count; i++) {
+            out.append('/');
+            appendSegment(out, i, encode);
+        }
+        if (endTag) {
+            out.append('/');
+        }
+    }
+
+    /**
+     * 64位指纹，与{@code UrlFingerprint.hash64(build())}相同，但不生成中间字符串
+     * @see UrlFingerprint
+     */
+    public long fingerprint64() {
+        return fingerprint().hash64();
+    }
+    /**
+     * 128位指纹，与{@code UrlFingerprint.hash128(build())}相同，但不生成中间字符串
+     * @see UrlFingerprint
+     */
+    public long[] fingerprint128() {
+        return fingerprint().hash128();
+    }
+    private UrlFingerprint fingerprint() {
+        UrlFingerprint fingerprint = new UrlFingerprint();
+        try {
+            buildTo(fingerprint);
+        } catch (IOException e) {
+            // UrlFingerprint不会抛出IOException
+            throw new IllegalStateException(e);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * 以规范形式写入out，前面带'/'，供{@link UrlCanonicalizer}使用；没有任何内容时写入"/"
+     * @param removeDotSegments 是否移除"."和".."路径段
+     * @see <a href="https://tools.ietf.org/html/rfc3986#section-5.2.4">RFC 3986 - Remove Dot Segments</a>
+     */
+    void canonicalTo(StringBuilder out, boolean removeDotSegments, PercentCodec.Component component) {
+        int size = count;
+        boolean trailingSlash = endTag;
+        if (!removeDotSegments) {
+            for (int i = 0; i < size; i++) {
+                PercentCodec.encode(segment(i), component, out.append('/'));
+            }
+        } else {
+            // 保留下来的路径段，".."时出栈
+            int[] kept = new int[size];
+            int depth = 0;
+            for (int i = 0; i < size; i++) {
+                String segment = segment(i);
+                boolean last = i == size - 1;
+                if (".".equals(segment)) {
+                    trailingSlash |= last;
+                } else if ("..".equals(segment)) {
+                    if (depth > 0) {
+                        depth--;
+                    }
+                    trailingSlash |= last;
+                } else {
+                    kept[depth++] = i;
+                }
+            }
+            for (int i = 0; i < depth; i++) {
+                PercentCodec.encode(segment(kept[i]), component, out.append('/'));
+            }
+            size = depth;
+        }
+        if (trailingSlash || size == 0) {
+            out.append('/');
+        }
+    }
+
+    /**
+     * 计算URL编码后的path长度，与{@link #build()}的结果长度一致
+     */
+    public int encodedLength() {
+        if (isEncodedValid()) {
+            return encoded.length();
+        }
+        int length = endTag ? 1 : 0;
+        for (int i = 0; i < count; i++) {
+            String segment = segments[i];
+            if (segment == NUMBER) {
+                length += 1 + Util.numberLength(numbers[i]);
+            } else {
+                length += 1 + (isVerbatim(i) ? segment.length() : PercentCodec.encodedLength(segment, PercentCodec.Component.FORM));
+            }
+        }
+        return length;
+    }
+
+
+    public static UrlPath from(Collection<String> segments) {
+        UrlPath urlPath = new UrlPath();
+        urlPath.segments = segments.toArray(new String[Math.max(8, segments.size())]);
+        urlPath.count = segments.size();
+        return urlPath;
+    }
+
+    public static UrlPath parse(String path) {
+        final UrlPath urlPath = new UrlPath();
+
+        if (Util.isNotEmpty(path)) {
+            final String trimmed = path.trim();
+
+            urlPath.endTag(trimmed.endsWith("/"));
+
+            UrlTokenizer.tokenizePath(trimmed, 0, trimmed.length(), new UrlTokenizer.Visitor() {
+                @Override
+                public void segment(int start, int end) {
+                    urlPath.append(Util.decode(trimmed.substring(start, end)));
+                }
+            });
+        }
+
+        return urlPath;
+    }
+
+
+    @Override
+    public String toString() {
+        return build(false);
+    }
+
+    /**
+     * 返回的列表可以直接修改，因此视为一次修改
+     */
+    public List<String> getSegments() {
+        modCount++;
+        return segments();
+    }
+    /**
+     * 只读访问，供内部使用
+     */
+    List<String> segments() {
+        if (segments == null) {
+            return null;
+        }
+        if (view == null) {
+            view = new SegmentList();
+        }
+        return view;
+    }
+    public boolean isEndTag() {
+        return endTag;
+    }
+
+
+    /**
+     * 路径段的列表视图，读取整数路径段时才转换为String
+     */
+    private final class SegmentList extends AbstractList<String> implements RandomAccess {
+        @Override
+        public int size() {
+            return count;
+        }
+        @Override
+        public String get(int index) {
+            checkIndex(index, count);
+            return segment(index);
+        }
+        @Override
+        public String set(int index, String element) {
+            String old = get(index);
+            segments[index] = element;
+            if (verbatim != null) {
+                verbatim[index] = false;
+            }
+            UrlPath.this.modCount++;
+            return old;
+        }
+        @Override
+        public void add(int index, String element) {
+            checkIndex(index, count + 1);
+            int slot = insert(index);
+            segments[slot] = element;
+            modCount++;
+        }
+        @Override
+        public String remove(int index) {
+            String old = get(index);
+            delete(index);
+            modCount++;
+            return old;
+        }
+        @Override
+        public void clear() {
+            UrlPath.this.clear();
+            modCount++;
+        }
+
+        private void checkIndex(int index, int size) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+            }
+        }
+    }
+
+}
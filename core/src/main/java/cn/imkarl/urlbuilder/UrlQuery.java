@@ -0,0 +1,963 @@
+package cn.imkarl.urlbuilder;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * URL 查询字符串
+ * @version imkarl 2017-04
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Query_string">Query string</a>
+ */
+public class UrlQuery {
+    private static final int NONE = -1;
+    /** 表示整数参数的VALUE（按引用比较），实际的值保存在numbers中 */
+    private static final String NUMBER = new String("#");
+
+    /*
+     * 按插入顺序保存的参数，使用并行数组存储：
+     *   keys/values/hashes     参数内容
+     *   prev/next              插入顺序的双向链表（next同时作为空闲槽位链表）
+     *   sameNext/sameTail      相同KEY的参数链表，sameTail只在链表头有效
+     *   numbers                整数参数的值，对应的values为NUMBER；首次添加整数参数时才分配
+     *   verbatim               VALUE是否已编码（构建时原样输出）；首次添加已编码的参数时才分配
+     * table为开放寻址（线性探测）的散列表，保存每个KEY对应链表头的槽位（+1，0表示空）
+     */
+    private String[] keys;
+    private String[] values;
+    private int[] hashes;
+    private int[] prev;
+    private int[] next;
+    private int[] sameNext;
+    private int[] sameTail;
+    private int[] table;
+    private long[] numbers;
+    private boolean[] verbatim;
+
+    private int head = NONE;
+    private int tail = NONE;
+    private int free = NONE;
+    private int used;
+    private int size;
+    private int keyCount;
+    /** 修改次数，供{@link UrlBuilder}判断解析后是否被修改过，同时用于判断编码结果的缓存是否有效 */
+    int modCount;
+    /** URL编码后的结果，encodedModCount与modCount不一致时失效 */
+    private String encoded;
+    private int encodedModCount;
+    private ParamList view;
+
+    public UrlQuery() {
+    }
+
+    /**
+     * 添加query，不论是否已存在相同KEY
+     */
+    public UrlQuery append(String key, String value) {
+        if (Util.isEmpty(key)) {
+            return this;
+        }
+
+        key = key.trim();
+        value = Util.isEmpty(value) ? "" : value.trim();
+
+        add(key, value);
+        return this;
+    }
+
+    /**
+     * 添加整数参数，不论是否已存在相同KEY；不转换为String，构建时直接写入数字
+     */
+    public UrlQuery append(String key, long value) {
+        if (Util.isEmpty(key)) {
+            return this;
+        }
+
+        int slot = add(key.trim(), NUMBER);
+        if (numbers == null) {
+            numbers = new long[keys.length];
+        }
+        numbers[slot] = value;
+        return this;
+    }
+    public UrlQuery append(String key, boolean value) {
+        return append(key, value ? "true" : "false");
+    }
+    public UrlQuery append(String key, double value) {
+        return append(key, String.valueOf(value));
+    }
+
+    /**
+     * 添加已编码的参数，不论是否已存在相同KEY；VALUE在构建时原样输出，不再编码，
+     * KEY会被解码（通常没有需要解码的字符），以便按原始KEY查找
+     * @throws IllegalArgumentException 包含参数中不允许的字符（如'&'、'#'、空格），或者存在非法的转义序列
+     */
+    public UrlQuery appendEncoded(String key, String value) {
+        return appendEncoded(key, value, true);
+    }
+    /**
+     * 添加已编码的参数，不论是否已存在相同KEY
+     * @param validate 是否检查编码是否合法，来源可信时可以关闭
+     * @see #appendEncoded(String, String)
+     */
+    public UrlQuery appendEncoded(String key, String value, boolean validate) {
+        if (key == null || key.isEmpty()) {
+            return this;
+        }
+        if (value == null) {
+            value = "";
+        }
+        if (validate) {
+            checkEncoded(key);
+            checkEncoded(value);
+        }
+        addEncoded(Util.decode(key), value);
+        return this;
+    }
+    /**
+     * 添加已编码的VALUE，不检查编码，KEY为解码后的内容
+     */
+    void addEncoded(String decodedKey, String value) {
+        int slot = add(decodedKey, value);
+        if (verbatim == null) {
+            verbatim = new boolean[keys.length];
+        }
+        verbatim[slot] = true;
+    }
+
+    private static void checkEncoded(String str) {
+        int invalid = PercentCodec.indexOfInvalidEncoding(str, 0, str.length(), PercentCodec.Component.QUERY);
+        if (invalid >= 0) {
+            throw new IllegalArgumentException("Illegal character in encoded query at index " + invalid + ": " + str);
+        }
+    }
+
+    /**
+     * 如果已存在相同KEY，则替换之前所有的
+     */
+    public UrlQuery put(String key, String value) {
+        if (Util.isEmpty(key)) {
+            return this;
+        }
+
+        key = key.trim();
+
+        removeKey(key);
+        append(key, value);
+        return this;
+    }
+
+    public UrlQuery put(String key, long value) {
+        if (Util.isEmpty(key)) {
+            return this;
+        }
+
+        key = key.trim();
+
+        removeKey(key);
+        append(key, value);
+        return this;
+    }
+    public UrlQuery put(String key, boolean value) {
+        return put(key, value ? "true" : "false");
+    }
+    public UrlQuery put(String key, double value) {
+        return put(key, String.valueOf(value));
+    }
+
+    /**
+     * 添加已编码的参数，如果已存在相同KEY，则替换之前所有的
+     * @see #appendEncoded(String, String)
+     */
+    public UrlQuery putEncoded(String key, String value) {
+        return putEncoded(key, value, true);
+    }
+    public UrlQuery putEncoded(String key, String value, boolean validate) {
+        if (key == null || key.isEmpty()) {
+            return this;
+        }
+        if (value == null) {
+            value = "";
+        }
+        // 检查通过之后再移除，不合法时保持不变
+        if (validate) {
+            checkEncoded(key);
+            checkEncoded(value);
+        }
+
+        String decodedKey = Util.decode(key);
+        removeKey(decodedKey);
+        addEncoded(decodedKey, value);
+        return this;
+    }
+
+    /**
+     * 移除所有相同KEY的参数
+     */
+    public UrlQuery remove(String key) {
+        if (Util.isNotEmpty(key)) {
+            removeKey(key.trim());
+        }
+        return this;
+    }
+
+    /**
+     * 移除所有参数，保留已分配的数组和散列表，可以继续复用当前对象
+     */
+    public UrlQuery clear() {
+        if (keys != null) {
+            Arrays.fill(keys, 0, used, null);
+            Arrays.fill(values, 0, used, null);
+            Arrays.fill(table, 0);
+        }
+        head = NONE;
+        tail = NONE;
+        free = NONE;
+        used = 0;
+        size = 0;
+        keyCount = 0;
+        modCount++;
+        return this;
+    }
+
+    /**
+     * @return 第一个相同KEY的参数值，不存在则返回null
+     */
+    public String get(String key) {
+        int slot = Util.isEmpty(key) ? NONE : findHead(key.trim());
+        return slot == NONE ? null : value(slot);
+    }
+
+    /**
+     * @return 所有相同KEY的参数值（按添加顺序），不存在则返回空列表
+     */
+    public List<String> getAll(String key) {
+        int slot = Util.isEmpty(key) ? NONE : findHead(key.trim());
+        if (slot == NONE) {
+            return Collections.emptyList();
+        }
+        List<String> result = new ArrayList<>();
+        for (; slot != NONE; slot = sameNext[slot]) {
+            result.add(value(slot));
+        }
+        return result;
+    }
+
+    public boolean contains(String key) {
+        return Util.isNotEmpty(key) && findHead(key.trim()) != NONE;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+
+    /**
+     * @return 参数值，整数参数在此时才转换为String，已编码的参数在此时才解码
+     */
+    private String value(int slot) {
+        String value = values[slot];
+        if (value == NUMBER) {
+            return String.valueOf(numbers[slot]);
+        }
+        return isVerbatim(slot) ? Util.decode(value) : value;
+    }
+
+    private String nonNullValue(int slot) {
+        String value = value(slot);
+        return value != null ? value : "";
+    }
+
+    /**
+     * @return 每个参数已编码的VALUE（按添加顺序，与getParams()一一对应），不是已编码添加的参数为null；没有已编码的参数时返回null
+     */
+    String[] verbatimValues() {
+        if (verbatim == null) {
+            return null;
+        }
+        String[] result = new String[size];
+        int index = 0;
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            if (verbatim[slot]) {
+                result[index] = values[slot];
+            }
+            index++;
+        }
+        return result;
+    }
+
+    private boolean isVerbatim(int slot) {
+        return verbatim != null && verbatim[slot];
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private int findHead(String key) {
+        return findHead(key, hash(key));
+    }
+    private int findHead(String key, int hash) {
+        if (table == null) {
+            return NONE;
+        }
+        int mask = table.length - 1;
+        for (int i = hash & mask; table[i] != 0; i = (i + 1) & mask) {
+            int slot = table[i] - 1;
+            if (hashes[slot] == hash && keys[slot].equals(key)) {
+                return slot;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * 添加参数，不做任何处理
+     * @return 参数所在的槽位
+     */
+    int add(String key, String value) {
+        if (keys == null) {
+            allocate(8);
+        }
+        if (free == NONE && used == keys.length) {
+            allocate(keys.length * 2);
+        }
+
+        int hash = hash(key);
+        int first = findHead(key, hash);
+        if (first == NONE && (keyCount + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+
+        int slot;
+        if (free != NONE) {
+            slot = free;
+            free = next[slot];
+        } else {
+            slot = used++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        hashes[slot] = hash;
+        if (verbatim != null) {
+            verbatim[slot] = false;
+        }
+        modCount++;
+        sameNext[slot] = NONE;
+
+        // 插入顺序
+        prev[slot] = tail;
+        next[slot] = NONE;
+        if (tail == NONE) {
+            head = slot;
+        } else {
+            next[tail] = slot;
+        }
+        tail = slot;
+        size++;
+
+        // 相同KEY的链表
+        if (first == NONE) {
+            insertHead(slot);
+            keyCount++;
+            sameTail[slot] = slot;
+        } else {
+            sameNext[sameTail[first]] = slot;
+            sameTail[first] = slot;
+        }
+        return slot;
+    }
+
+    private boolean removeKey(String key) {
+        int first = findHead(key);
+        if (first == NONE) {
+            return false;
+        }
+        deleteHead(first);
+        keyCount--;
+        modCount++;
+
+        for (int slot = first, nextSame; slot != NONE; slot = nextSame) {
+            nextSame = sameNext[slot];
+            if (prev[slot] == NONE) {
+                head = next[slot];
+            } else {
+                next[prev[slot]] = next[slot];
+            }
+            if (next[slot] == NONE) {
+                tail = prev[slot];
+            } else {
+                prev[next[slot]] = prev[slot];
+            }
+            keys[slot] = null;
+            values[slot] = null;
+            next[slot] = free;
+            free = slot;
+            size--;
+        }
+        return true;
+    }
+
+    private void insertHead(int slot) {
+        int mask = table.length - 1;
+        int i = hashes[slot] & mask;
+        while (table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        table[i] = slot + 1;
+    }
+
+    /**
+     * 从散列表中删除链表头，并回移后续的探测序列
+     */
+    private void deleteHead(int slot) {
+        int mask = table.length - 1;
+        int i = hashes[slot] & mask;
+        while (table[i] != slot + 1) {
+            i = (i + 1) & mask;
+        }
+        table[i] = 0;
+        for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+            int k = hashes[table[j] - 1] & mask;
+            if (i <= j ? (k <= i || k > j) : (k <= i && k > j)) {
+                table[i] = table[j];
+                table[j] = 0;
+                i = j;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        if (keys == null) {
+            keys = new String[capacity];
+            values = new String[capacity];
+            hashes = new int[capacity];
+            prev = new int[capacity];
+            next = new int[capacity];
+            sameNext = new int[capacity];
+            sameTail = new int[capacity];
+            table = new int[capacity * 2];
+        } else {
+            keys = Arrays.copyOf(keys, capacity);
+            values = Arrays.copyOf(values, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            next = Arrays.copyOf(next, capacity);
+            sameNext = Arrays.copyOf(sameNext, capacity);
+            sameTail = Arrays.copyOf(sameTail, capacity);
+            if (numbers != null) {
+                numbers = Arrays.copyOf(numbers, capacity);
+            }
+            if (verbatim != null) {
+                verbatim = Arrays.copyOf(verbatim, capacity);
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            // 按插入顺序遍历时，每个KEY第一次出现的即为链表头
+            if (findHead(keys[slot]) == NONE) {
+                insertHead(slot);
+            }
+        }
+    }
+
+
+    /**
+     * 构建Query string，前面不带'?'（对key-value进行URL编码处理）
+     * @return 如果没有任何内容，则返回空字符串""
+     */
+    public String build() {
+        return build(true);
+    }
+    /**
+     * 构建Query string，前面不带'?'
+     * @param encode 是否需要对key-value进行URL编码处理
+     * @return 如果没有任何内容，则返回空字符串""
+     */
+    public String build(boolean encode) {
+        if (!UrlMetrics.enabled()) {
+            return buildString(encode);
+        }
+        long start = System.nanoTime();
+        String built = buildString(encode);
+        UrlMetrics.record(UrlMetrics.Operation.QUERY_BUILD, System.nanoTime() - start, built.length(), size);
+        return built;
+    }
+    /**
+     * 与{@link #build(boolean)}相同，不计入{@link UrlMetrics}，供{@link UrlBuilder}使用
+     */
+    String buildString(boolean encode) {
+        if (isEmpty()) {
+            return "";
+        }
+        if (!encode) {
+            return buildTo(new StringBuilder(), false).toString();
+        }
+        if (!isEncodedValid()) {
+            encoded = buildTo(new StringBuilder(encodedLength()), true).toString();
+            encodedModCount = modCount;
+        }
+        return encoded;
+    }
+
+    private boolean isEncodedValid() {
+        return encoded != null && encodedModCount == modCount;
+    }
+
+    /**
+     * 构建Query string并写入out，前面不带'?'（对key-value进行URL编码处理）
+     * @return out
+     */
+    public StringBuilder buildTo(StringBuilder out) {
+        return buildTo(out, true);
+    }
+    /**
+     * 构建Query string并写入out，前面不带'?'
+     * @param encode 是否需要对key-value进行URL编码处理
+     * @return out
+     */
+    public StringBuilder buildTo(StringBuilder out, boolean encode) {
+        try {
+            buildTo((Appendable) out, encode);
+        } catch (IOException e) {
+            // StringBuilder不会抛出IOException
+            throw new IllegalStateException(e);
+        }
+        return out;
+    }
+    /**
+     * 构建Query string并写入out，前面不带'?'（对key-value进行URL编码处理）
+     */
+    public void buildTo(Appendable out) throws IOException {
+        buildTo(out, true);
+    }
+    /**
+     * 构建Query string并写入out，前面不带'?'
+     * @param encode 是否需要对key-value进行URL编码处理
+     */
+    public void buildTo(Appendable out, boolean encode) throws IOException {
+        if (encode && isEncodedValid()) {
+            out.append(encoded);
+            return;
+        }
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            if (slot != head) {
+                out.append('&');
+            }
+            if (encode) {
+                PercentCodec.encode(keys[slot], PercentCodec.Component.FORM, out);
+            } else {
+                out.append(keys[slot]);
+            }
+            out.append('=');
+            if (encode) {
+                appendEncodedValue(out, slot);
+            } else {
+                appendValue(out, slot, null);
+            }
+        }
+    }
+
+    /**
+     * 从第from个参数（按添加顺序）开始编码并写入out，前面不带'&'，供{@link UrlBuilder}拼接原始query使用
+     */
+    void buildTo(Appendable out, int from) throws IOException {
+        int slot = head;
+        for (int i = 0; i < from && slot != NONE; i++) {
+            slot = next[slot];
+        }
+        for (int first = slot; slot != NONE; slot = next[slot]) {
+            if (slot != first) {
+                out.append('&');
+            }
+            PercentCodec.encode(keys[slot], PercentCodec.Component.FORM, out);
+            out.append('=');
+            appendEncodedValue(out, slot);
+        }
+    }
+
+    /**
+     * 按{@link #build()}的方式写入参数值，已编码的参数原样写入
+     */
+    private void appendEncodedValue(Appendable out, int slot) throws IOException {
+        if (isVerbatim(slot)) {
+            out.append(values[slot]);
+        } else {
+            appendValue(out, slot, PercentCodec.Component.FORM);
+        }
+    }
+
+    /**
+     * 写入参数值，整数参数直接写入数字（不需要编码），已编码的参数先解码
+     * @param component 为null时不编码
+     */
+    private void appendValue(Appendable out, int slot, PercentCodec.Component component) throws IOException {
+        String value = values[slot];
+        if (value == NUMBER) {
+            Util.appendNumber(out, numbers[slot]);
+            return;
+        }
+        if (isVerbatim(slot)) {
+            value = Util.decode(value);
+        }
+        if (component != null) {
+            PercentCodec.encode(value, component, out);
+        } else {
+            out.append(value);
+        }
+    }
+
+    /**
+     * 64位指纹，与{@code UrlFingerprint.hash64(build())}相同，但不生成中间字符串
+     * @see UrlFingerprint
+     */
+    public long fingerprint64() {
+        return fingerprint().hash64();
+    }
+    /**
+     * 128位指纹，与{@code UrlFingerprint.hash128(build())}相同，但不生成中间字符串
+     * @see UrlFingerprint
+     */
+    public long[] fingerprint128() {
+        return fingerprint().hash128();
+    }
+    private UrlFingerprint fingerprint() {
+        UrlFingerprint fingerprint = new UrlFingerprint();
+        try {
+            buildTo(fingerprint);
+        } catch (IOException e) {
+            // UrlFingerprint不会抛出IOException
+            throw new IllegalStateException(e);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * 按添加顺序写入所有参数，供{@link UrlBinaryCodec}使用
+     */
+    void writeTo(UrlBinaryCodec codec, UrlBinaryCodec.ByteWriter writer) {
+        writer.writeVarint(size);
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            codec.writeParam(writer, keys[slot], value(slot));
+        }
+    }
+    /**
+     * 按添加顺序写入所有参数，供{@link UrlTable}使用
+     */
+    void writeTo(UrlTable table) {
+        for (int slot = head; slot != NONE; slot = next[slot]) {
+            table.addParam(keys[slot], value(slot));
+        }
+    }
+
+    /**
+     * 以规范形式写入out，前面不带'?'，供{@link UrlCanonicalizer}和{@link UrlBuilder#toURIString()}使用
+     * @param sort 是否按KEY排序（相同KEY的参数保持添加顺序）
+     * @param dedupe 是否去除KEY和VALUE都相同的重复参数（保留第一个）
+     */
+    void canonicalTo(StringBuilder out, boolean sort, boolean dedupe, PercentCodec.Component component) {
+        if (size == 0) {
+            return;
+        }
+        int start = out.length();
+        if (sort) {
+            // 每个KEY的链表即为该KEY的所有参数（按添加顺序），只需对KEY排序
+            String[] sortedKeys = new String[keyCount];
+            int count = 0;
+            for (int i = 0; i < table.length; i++) {
+                if (table[i] != 0) {
+                    sortedKeys[count++] = keys[table[i] - 1];
+                }
+            }
+            Arrays.sort(sortedKeys);
+            for (String key : sortedKeys) {
+                int first = findHead(key);
+                for (int slot = first; slot != NONE; slot = sameNext[slot]) {
+                    if (!dedupe || !containsValueBefore(first, slot)) {
+                        appendParam(out, slot, start, component);
+                    }
+                }
+            }
+        } else {
+            for (int slot = head; slot != NONE; slot = next[slot]) {
+                if (!dedupe || !containsValueBefore(findHead(keys[slot], hashes[slot]), slot)) {
+                    appendParam(out, slot, start, component);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 相同KEY的链表中，slot之前是否已存在相同的VALUE（null与build()一致，视为""）
+     */
+    private boolean containsValueBefore(int first, int slot) {
+        boolean number = values[slot] == NUMBER;
+        String value = nonNullValue(slot);
+        for (int i = first; i != slot; i = sameNext[i]) {
+            boolean same = number && values[i] == NUMBER ? numbers[i] == numbers[slot]
+                    : nonNullValue(i).equals(value);
+            if (same) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void appendParam(StringBuilder out, int slot, int start, PercentCodec.Component component) {
+        if (out.length() > start) {
+            out.append('&');
+        }
+        PercentCodec.encode(keys[slot], component, out).append('=');
+        try {
+            appendValue(out, slot, component);
+        } catch (IOException e) {
+            // StringBuilder不会抛出IOException
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 计算URL编码后的Query string长度，与{@link #build()}的结果长度一致
+     */
+    public int encodedLength() {
+        if (isEncodedValid()) {
+            return encoded.length();
+        }
+        return encodedLength(0);
+    }
+    /**
+     * 计算从第from个参数（按添加顺序）开始的编码长度，与{@link #buildTo(Appendable, int)}一致
+     */
+    int encodedLength(int from) {
+        if (from >= size) {
+            return 0;
+        }
+        int length = 2 * (size - from) - 1;
+        int slot = head;
+        for (int i = 0; i < from; i++) {
+            slot = next[slot];
+        }
+        for (; slot != NONE; slot = next[slot]) {
+            length += PercentCodec.encodedLength(keys[slot], PercentCodec.Component.FORM);
+            String value = values[slot];
+            if (value == NUMBER) {
+                length += Util.numberLength(numbers[slot]);
+            } else {
+                length += isVerbatim(slot) ? value.length() : PercentCodec.encodedLength(value, PercentCodec.Component.FORM);
+            }
+        }
+        return length;
+    }
+
+
+    public static UrlQuery from(Map<String, String> params) {
+        UrlQuery urlQuery = new UrlQuery();
+        if (params != null && !params.isEmpty()) {
+            for (Map.Entry<String, String> entry : params.entrySet()) {
+                if (Util.isNotEmpty(entry.getKey())) {
+                    urlQuery.add(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return urlQuery;
+    }
+    public static UrlQuery from(Collection<Part<String, String>> params) {
+        UrlQuery urlQuery = new UrlQuery();
+        if (params != null && !params.isEmpty()) {
+            for (Part<String, String> part : params) {
+                if (part.getKey() != null) {
+                    urlQuery.add(part.getKey(), part.getValue());
+                }
+            }
+        }
+        return urlQuery;
+    }
+    public static UrlQuery from(Part<String, String>... params) {
+        return from(Arrays.asList(params));
+    }
+
+    public static UrlQuery parse(String query) {
+        if (!UrlMetrics.enabled() || query == null) {
+            return parseQuery(query);
+        }
+        long start = System.nanoTime();
+        UrlQuery urlQuery = parseQuery(query);
+        UrlMetrics.record(UrlMetrics.Operation.QUERY_PARSE, System.nanoTime() - start, query.length(), urlQuery.size);
+        return urlQuery;
+    }
+    private static UrlQuery parseQuery(final String query) {
+        final UrlQuery urlQuery = new UrlQuery();
+
+        if (Util.isEmpty(query)) {
+            return urlQuery;
+        }
+
+        int end = query.indexOf('#');
+        end = end < 0 ? query.length() : end;
+        int start = query.lastIndexOf('?', end - 1) + 1;
+
+        UrlTokenizer.tokenizeQuery(query, start, end, new UrlTokenizer.Visitor() {
+            @Override
+            public void param(int keyStart, int keyEnd, int valueStart, int valueEnd) {
+                if (valueStart != -1) {
+                    urlQuery.append(Util.decode(query.substring(keyStart, keyEnd)),
+                            Util.decode(query.substring(valueStart, valueEnd)));
+                }
+            }
+        });
+
+        return urlQuery;
+    }
+
+
+    /**
+     * 从原始的Query string中只取出指定参数的值，不构建UrlQuery：
+     * 单次扫描，在原字符串上直接比较KEY，只解码匹配的VALUE，所有KEY都找到后立即停止。
+     * 结果与{@code UrlBuilder.parse("?" + raw).getQuery().get(key)}一致（没有'='的参数视为空值）
+     * @param raw 可以带开头的'?'，遇到'#'时结束
+     * @return 与keys一一对应的值（相同KEY取第一个），不存在则为null
+     */
+    public static String[] extract(CharSequence raw, String... keys) {
+        String[] result = new String[keys.length];
+        String[] targets = new String[keys.length];
+        int remaining = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (Util.isNotEmpty(keys[i])) {
+                targets[i] = keys[i].trim();
+                remaining++;
+            }
+        }
+        if (raw == null || remaining == 0) {
+            return result;
+        }
+
+        int end = raw.length();
+        int pos = end > 0 && raw.charAt(0) == '?' ? 1 : 0;
+        while (pos < end && remaining > 0) {
+            char c = raw.charAt(pos);
+            if (c == '#') {
+                break;
+            }
+            // 定位当前参数
+            int partStart = pos;
+            int equation = -1;
+            boolean plain = true;
+            for (; pos < end; pos++) {
+                c = raw.charAt(pos);
+                if (c == '&' || c == '#') {
+                    break;
+                }
+                if (c == '=') {
+                    if (equation == -1) {
+                        equation = pos;
+                    }
+                } else if (equation == -1 && (c == '%' || c == '+' || c <= ' ')) {
+                    // KEY需要解码或去除空白，不能直接比较
+                    plain = false;
+                }
+            }
+            int keyEnd = equation == -1 ? pos : equation;
+            if (keyEnd > partStart) {
+                String decodedKey = plain ? null : PercentCodec.decode(raw.subSequence(partStart, keyEnd).toString(),
+                        PercentCodec.Component.FORM).trim();
+                String value = null;
+                for (int i = 0; i < targets.length; i++) {
+                    String target = targets[i];
+                    if (target == null || result[i] != null) {
+                        continue;
+                    }
+                    if (plain ? regionEquals(raw, partStart, keyEnd, target) : target.equals(decodedKey)) {
+                        if (value == null) {
+                            value = equation == -1 ? "" : decodeValue(raw, equation + 1, pos);
+                        }
+                        result[i] = value;
+                        remaining--;
+                    }
+                }
+            }
+            if (pos < end && raw.charAt(pos) == '&') {
+                pos++;
+            }
+        }
+        return result;
+    }
+
+    private static boolean regionEquals(CharSequence raw, int start, int end, String target) {
+        if (end - start != target.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (raw.charAt(i) != target.charAt(i - start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String decodeValue(CharSequence raw, int start, int end) {
+        String value = PercentCodec.decode(raw.subSequence(start, end).toString(), PercentCodec.Component.FORM);
+        return Util.isEmpty(value) ? "" : value.trim();
+    }
+
+
+    @Override
+    public String toString() {
+        return build(false);
+    }
+
+    /**
+     * 返回的列表是只读的视图（按添加顺序），随当前对象的修改而变化；
+     * 修改参数请使用{@link #append(String, String)}、{@link #put(String, String)}、{@link #remove(String)}，
+     * 直接修改列表会抛出UnsupportedOperationException
+     */
+    public List<Part<String, String>> getParams() {
+        if (view == null) {
+            view = new ParamList();
+        }
+        return view;
+    }
+
+    /**
+     * 参数的只读列表视图；按下标顺序访问时从上一次的位置继续，遍历为O(n)
+     */
+    private final class ParamList extends AbstractList<Part<String, String>> {
+        private int cursorIndex;
+        private int cursorSlot = NONE;
+        private int cursorModCount = -1;
+
+        @Override
+        public int size() {
+            return size;
+        }
+        @Override
+        public Part<String, String> get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            if (cursorModCount != UrlQuery.this.modCount || cursorSlot == NONE || index < cursorIndex) {
+                cursorIndex = 0;
+                cursorSlot = head;
+                cursorModCount = UrlQuery.this.modCount;
+            }
+            for (; cursorIndex < index; cursorIndex++) {
+                cursorSlot = next[cursorSlot];
+            }
+            return new Part<>(keys[cursorSlot], value(cursorSlot));
+        }
+    }
+
+}
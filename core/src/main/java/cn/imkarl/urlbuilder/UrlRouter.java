@@ -0,0 +1,378 @@
+package cn.imkarl.urlbuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按路径段匹配的路由表（前缀树）
+ * @version imkarl 2017-04
+ *
+ * 路由形如：/users/{id}/orders/{orderId}、/static/*
+ *   {name}  匹配任意一个路径段
+ *   *       匹配剩余的所有路径段（可以为0个），只能出现在最后，通过{@code getParam("*")}获取（以'/'连接）
+ * 常量路径段与已解码的路径段比较（与{@link UrlPath#getSegments()}一致），不区分是否以'/'结尾。
+ * 同一位置有多种可能时，优先级为：常量 > {name} > *，优先的分支匹配失败时回溯尝试下一种。
+ * 前缀树中每个节点只对应一个深度，回溯时每个节点最多访问一次，并且跳过剩余路径段数不可能匹配的子树，
+ * 因此最坏情况下与路由表大小成正比，不会因回溯而指数增长。
+ *
+ * 通过{@link Builder}批量注册后编译为不可变的路由表，可以在多个线程中共享；
+ * 匹配耗时与路径深度成正比，除了匹配结果（捕获的变量）外不产生新对象
+ */
+public final class UrlRouter<T> {
+
+    /** 路由中表示剩余所有路径段的变量名 */
+    public static final String WILDCARD = "*";
+
+    private final Node<T> root;
+    private final int size;
+
+    private UrlRouter(Node<T> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * @return 注册的路由数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 没有匹配的路由时返回null
+     */
+    public Match<T> match(UrlPath path) {
+        List<String> segments = path == null ? null : path.segments();
+        return match(segments == null ? Collections.<String>emptyList() : segments);
+    }
+    /**
+     * @param path 未解码的路径，如"/users/1"
+     * @return 没有匹配的路由时返回null
+     */
+    public Match<T> match(String path) {
+        return match(UrlPath.parse(path));
+    }
+    /**
+     * @param segments 已解码的路径段
+     * @return 没有匹配的路由时返回null
+     */
+    public Match<T> match(List<String> segments) {
+        String[] captured = new String[segments.size() + 1];
+        Route<T> route = find(root, segments, 0, captured, 0);
+        return route == null ? null : new Match<>(route, captured);
+    }
+
+    private static <T> Route<T> find(Node<T> node, List<String> segments, int depth, String[] captured, int count) {
+        int remaining = segments.size() - depth;
+        if (remaining < node.minDepth || remaining > node.maxDepth) {
+            // 子树中没有路由可以匹配剩余的路径段数
+            return null;
+        }
+        if (depth == segments.size()) {
+            if (node.route != null) {
+                return node.route;
+            }
+        } else {
+            String segment = segments.get(depth);
+            Node<T> child = node.child(segment);
+            if (child != null) {
+                Route<T> route = find(child, segments, depth + 1, captured, count);
+                if (route != null) {
+                    return route;
+                }
+            }
+            if (node.param != null) {
+                captured[count] = segment;
+                Route<T> route = find(node.param, segments, depth + 1, captured, count + 1);
+                if (route != null) {
+                    return route;
+                }
+            }
+        }
+        if (node.wildcard != null) {
+            captured[count] = join(segments, depth);
+            return node.wildcard;
+        }
+        return null;
+    }
+
+    private static String join(List<String> segments, int from) {
+        int size = segments.size();
+        if (from == size) {
+            return "";
+        }
+        if (from == size - 1) {
+            return segments.get(from);
+        }
+        StringBuilder builder = new StringBuilder();
+        for (int i = from; i < size; i++) {
+            if (i > from) {
+                builder.append('/');
+            }
+            builder.append(segments.get(i));
+        }
+        return builder.toString();
+    }
+
+
+    /**
+     * 匹配结果
+     */
+    public static final class Match<T> {
+        private final Route<T> route;
+        private final String[] values;
+
+        private Match(Route<T> route, String[] values) {
+            this.route = route;
+            this.values = values;
+        }
+
+        public T getValue() {
+            return route.value;
+        }
+        /**
+         * @return 注册时的路由
+         */
+        public String getPattern() {
+            return route.pattern;
+        }
+        public int getParamCount() {
+            return route.names.length;
+        }
+        public String getParamName(int index) {
+            return route.names[index];
+        }
+        public String getParamValue(int index) {
+            if (index < 0 || index >= route.names.length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + route.names.length);
+            }
+            return values[index];
+        }
+        /**
+         * @return 变量的值（已解码），不存在该变量时返回null
+         */
+        public String getParam(String name) {
+            String[] names = route.names;
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(route.pattern);
+            for (int i = 0; i < route.names.length; i++) {
+                builder.append(i == 0 ? " {" : ", ").append(route.names[i]).append('=').append(values[i]);
+            }
+            return route.names.length == 0 ? builder.toString() : builder.append('}').toString();
+        }
+    }
+
+    private static final class Route<T> {
+        final String pattern;
+        final String[] names;
+        final T value;
+
+        Route(String pattern, String[] names, T value) {
+            this.pattern = pattern;
+            this.names = names;
+            this.value = value;
+        }
+    }
+
+    /**
+     * 编译后的节点，常量子节点保存在开放寻址（线性探测）的散列表中
+     */
+    private static final class Node<T> {
+        final String[] keys;
+        final Node<T>[] children;
+        final Node<T> param;
+        final Route<T> route;
+        final Route<T> wildcard;
+        /** 子树中的路由可以匹配的剩余路径段数的范围，包含*时没有上限 */
+        final int minDepth;
+        final int maxDepth;
+
+        Node(Map<String, Node<T>> statics, Node<T> param, Route<T> route, Route<T> wildcard) {
+            int capacity = 1;
+            while (capacity < statics.size() * 2) {
+                capacity <<= 1;
+            }
+            this.keys = statics.isEmpty() ? null : new String[capacity];
+            this.children = statics.isEmpty() ? null : Node.<T>newArray(capacity);
+            int min = route != null || wildcard != null ? 0 : Integer.MAX_VALUE;
+            int max = wildcard != null ? Integer.MAX_VALUE : (route != null ? 0 : -1);
+            if (param != null) {
+                min = Math.min(min, param.minDepth + 1);
+                max = Math.max(max, param.maxDepth == Integer.MAX_VALUE ? Integer.MAX_VALUE : param.maxDepth + 1);
+            }
+            for (Node<T> child : statics.values()) {
+                min = Math.min(min, child.minDepth + 1);
+                max = Math.max(max, child.maxDepth == Integer.MAX_VALUE ? Integer.MAX_VALUE : child.maxDepth + 1);
+            }
+            this.minDepth = min;
+            this.maxDepth = max;
+            if (keys != null) {
+                int mask = capacity - 1;
+                for (Map.Entry<String, Node<T>> entry : statics.entrySet()) {
+                    int i = hash(entry.getKey()) & mask;
+                    while (keys[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = entry.getKey();
+                    children[i] = entry.getValue();
+                }
+            }
+            this.param = param;
+            this.route = route;
+            this.wildcard = wildcard;
+        }
+
+        Node<T> child(String segment) {
+            if (keys == null) {
+                return null;
+            }
+            int mask = keys.length - 1;
+            for (int i = hash(segment) & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (keys[i].equals(segment)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        private static int hash(String key) {
+            int h = key.hashCode();
+            return h ^ (h >>> 16);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> Node<T>[] newArray(int length) {
+            return (Node<T>[]) new Node<?>[length];
+        }
+    }
+
+
+    /**
+     * 批量注册路由，{@link #build()}之后仍可以继续注册并再次编译，不影响已编译的路由表；不是线程安全的
+     */
+    public static final class Builder<T> {
+        private final BuilderNode<T> root = new BuilderNode<>();
+        private int size;
+
+        /**
+         * @param pattern 形如"/users/{id}"，常量路径段按原样（不解码）与已解码的路径段比较
+         * @throws IllegalArgumentException 路由不合法，或已注册过相同的路由（只有变量名不同也视为相同）
+         */
+        public Builder<T> add(String pattern, T value) {
+            if (pattern == null) {
+                throw new IllegalArgumentException("'pattern' must be non null.");
+            }
+            List<String> segments = new ArrayList<>();
+            for (String segment : pattern.split("/")) {
+                segment = segment.trim();
+                if (!segment.isEmpty()) {
+                    segments.add(segment);
+                }
+            }
+            return add(pattern, segments, value);
+        }
+        /**
+         * @param pattern 路径段形如"{id}"的作为变量，"*"作为剩余的所有路径段
+         */
+        public Builder<T> add(UrlPath pattern, T value) {
+            List<String> segments = pattern == null ? null : pattern.segments();
+            if (segments == null) {
+                segments = Collections.emptyList();
+            }
+            StringBuilder builder = new StringBuilder();
+            for (String segment : segments) {
+                builder.append('/').append(segment);
+            }
+            return add(segments.isEmpty() ? "/" : builder.toString(), segments, value);
+        }
+        public Builder<T> addAll(Map<String, ? extends T> routes) {
+            for (Map.Entry<String, ? extends T> entry : routes.entrySet()) {
+                add(entry.getKey(), entry.getValue());
+            }
+            return this;
+        }
+
+        private Builder<T> add(String pattern, List<String> segments, T value) {
+            List<String> names = new ArrayList<>();
+            BuilderNode<T> node = root;
+            for (int i = 0, count = segments.size(); i < count; i++) {
+                String segment = segments.get(i);
+                if (WILDCARD.equals(segment)) {
+                    if (i != count - 1) {
+                        throw new IllegalArgumentException("'*' must be the last segment: " + pattern);
+                    }
+                    names.add(WILDCARD);
+                    if (node.wildcard != null) {
+                        throw new IllegalArgumentException("Duplicate route: " + pattern + " and " + node.wildcard.pattern);
+                    }
+                    node.wildcard = new Route<>(pattern, toArray(names), value);
+                    size++;
+                    return this;
+                }
+                if (segment.length() > 1 && segment.charAt(0) == '{' && segment.charAt(segment.length() - 1) == '}') {
+                    String name = segment.substring(1, segment.length() - 1).trim();
+                    if (name.isEmpty() || names.contains(name)) {
+                        throw new IllegalArgumentException("Empty or duplicate variable name '" + name + "': " + pattern);
+                    }
+                    names.add(name);
+                    if (node.param == null) {
+                        node.param = new BuilderNode<>();
+                    }
+                    node = node.param;
+                } else {
+                    BuilderNode<T> child = node.statics.get(segment);
+                    if (child == null) {
+                        child = new BuilderNode<>();
+                        node.statics.put(segment, child);
+                    }
+                    node = child;
+                }
+            }
+            if (node.route != null) {
+                throw new IllegalArgumentException("Duplicate route: " + pattern + " and " + node.route.pattern);
+            }
+            node.route = new Route<>(pattern, toArray(names), value);
+            size++;
+            return this;
+        }
+
+        private static String[] toArray(List<String> names) {
+            return names.toArray(new String[names.size()]);
+        }
+
+        /**
+         * 编译为不可变的路由表
+         */
+        public UrlRouter<T> build() {
+            return new UrlRouter<>(root.compile(), size);
+        }
+    }
+
+    private static final class BuilderNode<T> {
+        final Map<String, BuilderNode<T>> statics = new LinkedHashMap<>();
+        BuilderNode<T> param;
+        Route<T> route;
+        Route<T> wildcard;
+
+        Node<T> compile() {
+            Map<String, Node<T>> children = new LinkedHashMap<>();
+            for (Map.Entry<String, BuilderNode<T>> entry : statics.entrySet()) {
+                children.put(entry.getKey(), entry.getValue().compile());
+            }
+            return new Node<>(children, param == null ? null : param.compile(), route, wildcard);
+        }
+    }
+
+}
@@ -0,0 +1,542 @@
+package cn.imkarl.urlbuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按列存储大量URL，数据保存在堆外（direct或内存映射）的缓冲区中
+ * @version imkarl 2017-04
+ *
+ * 列：
+ *   rows       每行固定{@value #ROW_INTS}个int（见ROW_*）
+ *   segments   每个路径段一个int，指向strings中的偏移
+ *   params     每个参数两个int：KEY的字典编号、VALUE在strings中的偏移
+ *   strings    varint(UTF-8字节数 + 1) + UTF-8字节，0表示null（与{@link UrlBinaryCodec}的字符串格式相同）
+ * scheme、host和query KEY使用字典编码，同一个值在整个表中只保存一份。
+ *
+ * 通过{@link #row()}得到的{@link Row}是可以移动的游标，读取时不产生新对象；需要时再用{@link Row#toUrlBuilder()}还原。
+ * 只能追加；写入不是线程安全的，没有写入时可以在多个线程中各自使用一个Row读取。
+ *
+ * 每列是一个ByteBuffer，列内偏移为int，因此单列最大{@value Integer#MAX_VALUE}字节（约2GB），
+ * 超出时{@link #add(UrlBuilder)}抛出IllegalStateException；更多的数据需要分成多个UrlTable
+ */
+public final class UrlTable {
+
+    /**
+     * 列缓冲区的分配方式
+     */
+    public interface Allocator {
+        /**
+         * @return position为0、limit为capacity的缓冲区
+         */
+        ByteBuffer allocate(int capacity);
+    }
+
+    /** 使用ByteBuffer.allocateDirect分配 */
+    public static final Allocator DIRECT = new Allocator() {
+        @Override
+        public ByteBuffer allocate(int capacity) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+    };
+
+    /**
+     * 在directory下创建临时文件并映射到内存，由操作系统负责换页
+     */
+    public static Allocator mapped(final File directory) {
+        return new Allocator() {
+            @Override
+            public ByteBuffer allocate(int capacity) {
+                try {
+                    File file = File.createTempFile("urltable", ".column", directory);
+                    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                        return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                    } finally {
+                        // 映射建立之后即可删除文件；删除失败的系统（Windows）在退出时删除
+                        if (!file.delete()) {
+                            file.deleteOnExit();
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to map column in " + directory, e);
+                }
+            }
+        };
+    }
+
+    private static final int ROW_FLAGS = 0;
+    private static final int ROW_SCHEME = 1;
+    private static final int ROW_USER_INFO = 2;
+    private static final int ROW_HOST = 3;
+    private static final int ROW_PORT = 4;
+    private static final int ROW_PATH_START = 5;
+    private static final int ROW_PATH_COUNT = 6;
+    private static final int ROW_QUERY_START = 7;
+    private static final int ROW_QUERY_COUNT = 8;
+    private static final int ROW_FRAGMENT = 9;
+    private static final int ROW_INTS = 10;
+
+    private static final int FLAG_PATH = 1;
+    private static final int FLAG_END_TAG = 1 << 1;
+    private static final int FLAG_QUERY = 1 << 2;
+
+    private static final int NONE = -1;
+    private static final String DEFAULT_SCHEME = "http";
+
+    private final Allocator allocator;
+    private final Column rows;
+    private final Column segments;
+    private final Column params;
+    private final Column strings;
+    private final Dictionary schemes = new Dictionary();
+    private final Dictionary hosts = new Dictionary();
+    private final Dictionary keys = new Dictionary();
+    private final UrlBinaryCodec.ByteWriter writer = new UrlBinaryCodec.ByteWriter();
+    private int size;
+
+    public UrlTable() {
+        this(DIRECT, 1024);
+    }
+    /**
+     * @param expectedRows 预计的行数，用于确定各列的初始容量
+     */
+    public UrlTable(Allocator allocator, int expectedRows) {
+        if (expectedRows <= 0) {
+            throw new IllegalArgumentException("'expectedRows' must be positive.");
+        }
+        this.allocator = allocator;
+        // 先检查所有列的容量，再分配
+        int rowsCapacity = capacity(expectedRows, ROW_INTS * 4);
+        int segmentsCapacity = capacity(expectedRows, 4 * 4);
+        int paramsCapacity = capacity(expectedRows, 4 * 8);
+        int stringsCapacity = capacity(expectedRows, 64);
+        this.rows = new Column("rows", rowsCapacity);
+        this.segments = new Column("segments", segmentsCapacity);
+        this.params = new Column("params", paramsCapacity);
+        this.strings = new Column("strings", stringsCapacity);
+    }
+
+    private static int capacity(int expectedRows, int bytesPerRow) {
+        long capacity = (long) expectedRows * bytesPerRow;
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("'expectedRows' is too large: " + expectedRows
+                    + " rows need " + capacity + " bytes in one column, max " + Integer.MAX_VALUE + ".");
+        }
+        return (int) capacity;
+    }
+
+
+    /**
+     * 追加一行
+     * @return 行号
+     */
+    public int add(UrlBuilder url) {
+        UrlPath path = url.getPath();
+        UrlQuery query = url.getQuery();
+        List<String> pathSegments = path == null ? null : path.segments();
+        int segmentCount = pathSegments == null ? 0 : pathSegments.size();
+        int paramCount = query == null ? 0 : query.size();
+
+        int flags = 0;
+        if (path != null) flags |= FLAG_PATH;
+        if (path != null && path.isEndTag()) flags |= FLAG_END_TAG;
+        if (query != null) flags |= FLAG_QUERY;
+
+        int segmentStart = segments.length / 4;
+        segments.ensure(segmentCount * 4);
+        for (int i = 0; i < segmentCount; i++) {
+            segments.putInt(addString(pathSegments.get(i)));
+        }
+        int paramStart = params.length / 8;
+        params.ensure(paramCount * 8);
+        if (query != null) {
+            query.writeTo(this);
+        }
+
+        rows.ensure(ROW_INTS * 4);
+        rows.putInt(flags);
+        rows.putInt(schemes.id(url.getScheme()));
+        rows.putInt(addString(url.getUserInfo()));
+        rows.putInt(hosts.id(url.getHost()));
+        rows.putInt(url.getPort());
+        rows.putInt(segmentStart);
+        rows.putInt(segmentCount);
+        rows.putInt(paramStart);
+        rows.putInt(paramCount);
+        rows.putInt(addString(url.getFragment()));
+        return size++;
+    }
+
+    /**
+     * 由{@link UrlQuery}按添加顺序回调
+     */
+    void addParam(String key, String value) {
+        params.putInt(keys.id(key));
+        params.putInt(addString(value));
+    }
+
+    /**
+     * @return 字符串在strings中的偏移，null返回-1
+     */
+    private int addString(String str) {
+        if (str == null) {
+            return NONE;
+        }
+        writer.length = 0;
+        writer.writeString(str);
+        int offset = strings.length;
+        strings.ensure(writer.length);
+        strings.put(writer.bytes, writer.length);
+        return offset;
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return 各列已使用的堆外字节数
+     */
+    public long getByteSize() {
+        return (long) rows.length + segments.length + params.length + strings.length;
+    }
+
+    /**
+     * @return 新的游标，位于第0行
+     */
+    public Row row() {
+        return new Row();
+    }
+    /**
+     * @return 新的游标，位于第index行
+     */
+    public Row row(int index) {
+        return new Row().moveTo(index);
+    }
+
+    /**
+     * 还原第index行
+     */
+    public UrlBuilder get(int index) {
+        return row(index).toUrlBuilder();
+    }
+
+
+    /**
+     * 某一行的视图，可以通过{@link #moveTo(int)}复用。
+     * 返回String的方法中，scheme、host和KEY为字典中的共享实例，不产生新对象；
+     * 其它字符串每次读取都会解码，可以使用append*方法写入已有的缓冲区
+     */
+    public final class Row {
+        private int index;
+        private int base;
+        /** 读取字符串时的位置 */
+        private int position;
+        private final StringBuilder scratch = new StringBuilder(64);
+
+        private Row() {
+        }
+
+        public Row moveTo(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            this.index = index;
+            this.base = index * ROW_INTS * 4;
+            return this;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        private int field(int field) {
+            return rows.buffer.getInt(base + field * 4);
+        }
+
+        public String getScheme() {
+            return schemes.value(field(ROW_SCHEME));
+        }
+        public String getUserInfo() {
+            return readString(field(ROW_USER_INFO));
+        }
+        public String getHost() {
+            return hosts.value(field(ROW_HOST));
+        }
+        public int getPort() {
+            return field(ROW_PORT);
+        }
+        public boolean hasPath() {
+            return (field(ROW_FLAGS) & FLAG_PATH) != 0;
+        }
+        public boolean isEndTag() {
+            return (field(ROW_FLAGS) & FLAG_END_TAG) != 0;
+        }
+        public int getSegmentCount() {
+            return field(ROW_PATH_COUNT);
+        }
+        public String getSegment(int i) {
+            return readString(segmentOffset(i));
+        }
+        /**
+         * 将第i个路径段写入out
+         * @return out
+         */
+        public StringBuilder appendSegment(int i, StringBuilder out) {
+            readString(segmentOffset(i), out);
+            return out;
+        }
+        public boolean hasQuery() {
+            return (field(ROW_FLAGS) & FLAG_QUERY) != 0;
+        }
+        public int getParamCount() {
+            return field(ROW_QUERY_COUNT);
+        }
+        public String getParamKey(int i) {
+            return keys.value(params.buffer.getInt(paramPosition(i)));
+        }
+        public String getParamValue(int i) {
+            return readString(params.buffer.getInt(paramPosition(i) + 4));
+        }
+        /**
+         * 将第i个参数的VALUE写入out
+         * @return out
+         */
+        public StringBuilder appendParamValue(int i, StringBuilder out) {
+            readString(params.buffer.getInt(paramPosition(i) + 4), out);
+            return out;
+        }
+        public String getFragment() {
+            return readString(field(ROW_FRAGMENT));
+        }
+
+        private int segmentOffset(int i) {
+            checkIndex(i, field(ROW_PATH_COUNT));
+            return segments.buffer.getInt((field(ROW_PATH_START) + i) * 4);
+        }
+        private int paramPosition(int i) {
+            checkIndex(i, field(ROW_QUERY_COUNT));
+            return (field(ROW_QUERY_START) + i) * 8;
+        }
+        private void checkIndex(int i, int count) {
+            if (i < 0 || i >= count) {
+                throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + count);
+            }
+        }
+
+
+        /**
+         * 构建URL并写入out，结果与{@code toUrlBuilder().build()}一致，不产生新对象
+         * @return out
+         */
+        public StringBuilder buildTo(StringBuilder out) {
+            String host = getHost();
+            if (Util.isEmpty(host)) {
+                throw new IllegalArgumentException("'host' must be non empty.");
+            }
+            String scheme = getScheme();
+            out.append(Util.isEmpty(scheme) ? DEFAULT_SCHEME : scheme).append("://");
+            if (readScratch(field(ROW_USER_INFO)) && !isBlank(scratch)) {
+                PercentCodec.encode(scratch, PercentCodec.Component.USERINFO, out).append('@');
+            }
+            PercentCodec.encode(host, PercentCodec.Component.FORM, out);
+            int port = getPort();
+            if (port > 0) {
+                out.append(':').append(port);
+            }
+
+            int segmentCount = getSegmentCount();
+            for (int i = 0; i < segmentCount; i++) {
+                readScratch(segmentOffset(i));
+                PercentCodec.encode(scratch, PercentCodec.Component.FORM, out.append('/'));
+            }
+            if (segmentCount == 0 || isEndTag()) {
+                out.append('/');
+            }
+
+            int paramCount = getParamCount();
+            for (int i = 0; i < paramCount; i++) {
+                out.append(i == 0 ? '?' : '&');
+                PercentCodec.encode(getParamKey(i), PercentCodec.Component.FORM, out).append('=');
+                readScratch(params.buffer.getInt(paramPosition(i) + 4));
+                PercentCodec.encode(scratch, PercentCodec.Component.FORM, out);
+            }
+
+            if (readScratch(field(ROW_FRAGMENT)) && !isBlank(scratch)) {
+                PercentCodec.encode(scratch, PercentCodec.Component.FORM, out.append('#'));
+            }
+            return out;
+        }
+
+        public String build() {
+            return buildTo(new StringBuilder(128)).toString();
+        }
+
+        /**
+         * 还原为UrlBuilder
+         */
+        public UrlBuilder toUrlBuilder() {
+            UrlBuilder url = new UrlBuilder().scheme(getScheme()).userInfo(getUserInfo()).host(getHost()).port(getPort());
+            if (hasPath()) {
+                UrlPath path = new UrlPath();
+                for (int i = 0, count = getSegmentCount(); i < count; i++) {
+                    path.addSegment(getSegment(i));
+                }
+                url.path(path.endTag(isEndTag()));
+            }
+            if (hasQuery()) {
+                UrlQuery query = new UrlQuery();
+                for (int i = 0, count = getParamCount(); i < count; i++) {
+                    query.add(getParamKey(i), getParamValue(i));
+                }
+                url.query(query);
+            }
+            return url.fragment(getFragment());
+        }
+
+        @Override
+        public String toString() {
+            return build();
+        }
+
+
+        private String readString(int offset) {
+            StringBuilder builder = new StringBuilder();
+            return readString(offset, builder) ? builder.toString() : null;
+        }
+        private boolean readScratch(int offset) {
+            scratch.setLength(0);
+            return readString(offset, scratch);
+        }
+
+        /**
+         * 将strings中offset处的字符串解码后写入out
+         * @return 是否不为null
+         */
+        private boolean readString(int offset, StringBuilder out) {
+            if (offset == NONE) {
+                return false;
+            }
+            ByteBuffer buffer = strings.buffer;
+            position = offset;
+            int length = readVarint(buffer) - 1;
+            if (length < 0) {
+                return false;
+            }
+            int end = position + length;
+            int i = position;
+            while (i < end) {
+                int b = buffer.get(i++);
+                if (b >= 0) {
+                    out.append((char) b);
+                } else if ((b & 0xE0) == 0xC0) {
+                    out.append((char) (((b & 0x1F) << 6) | (buffer.get(i++) & 0x3F)));
+                } else if ((b & 0xF0) == 0xE0) {
+                    out.append((char) (((b & 0x0F) << 12) | ((buffer.get(i++) & 0x3F) << 6) | (buffer.get(i++) & 0x3F)));
+                } else {
+                    out.appendCodePoint(((b & 0x07) << 18) | ((buffer.get(i++) & 0x3F) << 12)
+                            | ((buffer.get(i++) & 0x3F) << 6) | (buffer.get(i++) & 0x3F));
+                }
+            }
+            return true;
+        }
+
+        private int readVarint(ByteBuffer buffer) {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = buffer.get(position++);
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    private static boolean isBlank(CharSequence str) {
+        for (int i = 0, len = str.length(); i < len; i++) {
+            if (str.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * 可增长的列，只使用绝对位置读写
+     */
+    private final class Column {
+        final String name;
+        ByteBuffer buffer;
+        int length;
+
+        Column(String name, int capacity) {
+            this.name = name;
+            this.buffer = allocator.allocate(Math.max(capacity, 64));
+        }
+
+        void ensure(int extra) {
+            long required = (long) length + extra;
+            if (required <= buffer.capacity()) {
+                return;
+            }
+            if (required > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Column '" + name + "' would exceed " + Integer.MAX_VALUE
+                        + " bytes (" + required + "), split the rows into multiple UrlTable.");
+            }
+            long capacity = Math.min(Integer.MAX_VALUE, Math.max(required, buffer.capacity() * 2L));
+            ByteBuffer grown = allocator.allocate((int) capacity);
+            ByteBuffer old = buffer.duplicate();
+            old.position(0).limit(length);
+            grown.put(old);
+            buffer = grown;
+        }
+
+        void putInt(int value) {
+            buffer.putInt(length, value);
+            length += 4;
+        }
+
+        void put(byte[] bytes, int count) {
+            ByteBuffer target = buffer.duplicate();
+            target.position(length);
+            target.put(bytes, 0, count);
+            length += count;
+        }
+    }
+
+    /**
+     * 字符串 ==> 编号，null的编号为-1
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int id(String value) {
+            if (value == null) {
+                return NONE;
+            }
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = values.size();
+                ids.put(value, id);
+                values.add(value);
+            }
+            return id;
+        }
+
+        String value(int id) {
+            return id == NONE ? null : values.get(id);
+        }
+    }
+
+}
@@ -0,0 +1,190 @@
+package cn.imkarl.urlbuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 预编译的 URL 模板
+ * @version imkarl 2017-04
+ *
+ * 形如：https://api.example.com/v2/users/{id}/orders?page={p}&size={s}
+ *
+ * 编译时将常量部分保存为编码后的字符串，{@link #expand(Object...)}时只对变量部分进行URL编码，
+ * 变量的编码方式与{@link UrlBuilder#build()}一致
+ */
+public final class UrlTemplate {
+
+    /** 常量部分（已编码），比变量多一个 */
+    private final String[] literals;
+    /** 每个变量位置对应的变量名下标 */
+    private final int[] slots;
+    /** 变量名，按首次出现的顺序 */
+    private final List<String> names;
+    private final int literalLength;
+
+    private UrlTemplate(List<String> literals, List<Integer> slots, List<String> names) {
+        this.literals = literals.toArray(new String[literals.size()]);
+        this.slots = new int[slots.size()];
+        for (int i = 0; i < this.slots.length; i++) {
+            this.slots[i] = slots.get(i);
+        }
+        this.names = Collections.unmodifiableList(names);
+        int length = 0;
+        for (String literal : this.literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * 编译URL模板，变量以'{name}'表示，常量部分按原样视为URL（非ASCII等非法字符会被编码）
+     */
+    public static UrlTemplate compile(String pattern) {
+        if (Util.isEmpty(pattern)) {
+            throw new IllegalArgumentException("'pattern' must be non empty.");
+        }
+        return compile(pattern.trim(), "{", "}", false);
+    }
+    /**
+     * 以UrlBuilder为原型编译URL模板，原型中形如'{name}'的path、query或fragment将作为变量
+     */
+    public static UrlTemplate compile(UrlBuilder prototype) {
+        return compile(prototype.build(), "%7B", "%7D", true);
+    }
+
+    private static UrlTemplate compile(String pattern, String open, String close, boolean encodedNames) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        int pos = 0;
+        while (true) {
+            int start = pattern.indexOf(open, pos);
+            if (start < 0) {
+                literals.add(encodeLiteral(pattern.substring(pos)));
+                break;
+            }
+            int end = pattern.indexOf(close, start + open.length());
+            if (end < 0) {
+                throw new IllegalArgumentException("Unclosed variable at index " + start + ": " + pattern);
+            }
+            String name = pattern.substring(start + open.length(), end);
+            if (encodedNames) {
+                name = Util.decode(name);
+            }
+            if (Util.isEmpty(name)) {
+                throw new IllegalArgumentException("Empty variable name at index " + start + ": " + pattern);
+            }
+
+            literals.add(encodeLiteral(pattern.substring(pos, start)));
+            int index = names.indexOf(name);
+            if (index < 0) {
+                index = names.size();
+                names.add(name);
+            }
+            slots.add(index);
+            pos = end + close.length();
+        }
+        return new UrlTemplate(literals, slots, names);
+    }
+
+    /**
+     * 对常量部分中URL不允许出现的字符进行编码，保留已有的转义序列和分隔符
+     */
+    private static String encodeLiteral(String literal) {
+        StringBuilder builder = null;
+        for (int i = 0; i < literal.length(); i++) {
+            char c = literal.charAt(i);
+            boolean illegal = c <= ' ' || c >= 127 || "\"<>\\^`{|}".indexOf(c) >= 0;
+            if (illegal && builder == null) {
+                builder = new StringBuilder(literal.length() + 16).append(literal, 0, i);
+            }
+            if (builder != null) {
+                if (illegal) {
+                    int end = Character.isHighSurrogate(c) && i + 1 < literal.length() ? i + 2 : i + 1;
+                    PercentCodec.encode(literal.substring(i, end), PercentCodec.Component.PATH, builder);
+                    i = end - 1;
+                } else {
+                    builder.append(c);
+                }
+            }
+        }
+        return builder == null ? literal : builder.toString();
+    }
+
+
+    /**
+     * 按位置展开模板，参数与{@link #getVariableNames()}一一对应
+     */
+    public String expand(Object... values) {
+        return expandTo(new StringBuilder(literalLength + 16 * slots.length), values).toString();
+    }
+    /**
+     * 按变量名展开模板
+     */
+    public String expand(Map<String, ?> values) {
+        return expandTo(new StringBuilder(literalLength + 16 * slots.length), values).toString();
+    }
+
+    /**
+     * 按位置展开模板并写入out
+     * @return out
+     */
+    public StringBuilder expandTo(StringBuilder out, Object... values) {
+        if (values == null || values.length < names.size()) {
+            throw new IllegalArgumentException("Expected " + names.size() + " values for " + names);
+        }
+        out.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            appendValue(out, values[slots[i]]);
+            out.append(literals[i + 1]);
+        }
+        return out;
+    }
+    /**
+     * 按变量名展开模板并写入out
+     * @return out
+     */
+    public StringBuilder expandTo(StringBuilder out, Map<String, ?> values) {
+        for (String name : names) {
+            if (values == null || !values.containsKey(name)) {
+                throw new IllegalArgumentException("Missing value for '" + name + "'");
+            }
+        }
+        out.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            appendValue(out, values.get(names.get(slots[i])));
+            out.append(literals[i + 1]);
+        }
+        return out;
+    }
+
+    private static void appendValue(StringBuilder out, Object value) {
+        if (value == null) {
+            return;
+        }
+        CharSequence str = value instanceof CharSequence ? (CharSequence) value : String.valueOf(value);
+        PercentCodec.encode(str, PercentCodec.Component.FORM, out);
+    }
+
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(literalLength + 8 * slots.length);
+        builder.append(literals[0]);
+        for (int i = 0; i < slots.length; i++) {
+            builder.append('{').append(names.get(slots[i])).append('}').append(literals[i + 1]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 变量名，按首次出现的顺序
+     */
+    public List<String> getVariableNames() {
+        return names;
+    }
+
+}
@@ -0,0 +1,264 @@
+package cn.imkarl.urlbuilder;
+
+/**
+ * 事件驱动的URL切分器（类似SAX），单次从左到右扫描，只通过{@link Visitor}回调各组成部分的位置
+ * @version imkarl 2017-04
+ *
+ * 不解码、不创建任何String，也不创建UrlBuilder，适合只关心个别组成部分的日志分析、过滤等场景；
+ * {@link UrlBuilder#parse(String)}、{@link UrlPath#parse(String)}、{@link UrlQuery#parse(String)}都基于此实现。
+ *
+ * 输入可以是CharSequence或byte[]（按单字节处理，UTF-8等多字节字符不会被误认为分隔符），
+ * 回调中的位置都是[start, end)，相对于输入的开头（byte[]为数组下标）。
+ *
+ * @see <a href="https://tools.ietf.org/html/rfc3986#section-3">RFC 3986 - Syntax Components</a>
+ */
+public final class UrlTokenizer {
+
+    private UrlTokenizer() {
+    }
+
+    /**
+     * 回调，默认均不做任何处理，按需覆盖。按在URL中出现的顺序回调，不存在的部分不回调
+     */
+    public static abstract class Visitor {
+        public void scheme(int start, int end) {
+        }
+        /**
+         * 存在'@'时回调，可能为空
+         */
+        public void userInfo(int start, int end) {
+        }
+        /**
+         * 不为空时回调，IPv6地址包含'['和']'
+         */
+        public void host(int start, int end) {
+        }
+        /**
+         * host之后存在':'时回调，可能为空，也可能不是合法的数字
+         */
+        public void port(int start, int end) {
+        }
+        /**
+         * 整个path（可能为空），在{@link #segment(int, int)}之前回调
+         * @return 是否需要继续回调每个路径段
+         */
+        public boolean path(int start, int end) {
+            return true;
+        }
+        /**
+         * 以'/'分隔的路径段，空的路径段不回调
+         */
+        public void segment(int start, int end) {
+        }
+        /**
+         * 存在'?'时回调整个query（不含'?'，可能为空），在{@link #param(int, int, int, int)}之前回调
+         * @return 是否需要继续回调每个参数
+         */
+        public boolean query(int start, int end) {
+            return true;
+        }
+        /**
+         * 以'&'分隔的参数，空的参数不回调
+         * @param valueStart 没有'='时为-1（valueEnd同样为-1）
+         */
+        public void param(int keyStart, int keyEnd, int valueStart, int valueEnd) {
+        }
+        /**
+         * 存在'#'时回调（不含'#'，可能为空）
+         */
+        public void fragment(int start, int end) {
+        }
+    }
+
+
+    /**
+     * 切分完整的URL，忽略首尾空白
+     */
+    public static void tokenize(CharSequence url, Visitor visitor) {
+        if (url != null) {
+            tokenize(url, null, 0, url.length(), visitor);
+        }
+    }
+    public static void tokenize(CharSequence url, int start, int end, Visitor visitor) {
+        tokenize(url, null, start, end, visitor);
+    }
+    public static void tokenize(byte[] url, int offset, int length, Visitor visitor) {
+        tokenize(null, url, offset, offset + length, visitor);
+    }
+
+    /**
+     * 只切分path，回调{@link Visitor#path(int, int)}和{@link Visitor#segment(int, int)}
+     */
+    public static void tokenizePath(CharSequence path, int start, int end, Visitor visitor) {
+        tokenizePath(path, null, start, end, visitor);
+    }
+    public static void tokenizePath(byte[] path, int offset, int length, Visitor visitor) {
+        tokenizePath(null, path, offset, offset + length, visitor);
+    }
+
+    /**
+     * 只切分query（不含'?'），回调{@link Visitor#query(int, int)}和{@link Visitor#param(int, int, int, int)}
+     */
+    public static void tokenizeQuery(CharSequence query, int start, int end, Visitor visitor) {
+        tokenizeQuery(query, null, start, end, visitor);
+    }
+    public static void tokenizeQuery(byte[] query, int offset, int length, Visitor visitor) {
+        tokenizeQuery(null, query, offset, offset + length, visitor);
+    }
+
+
+    /**
+     * chars和bytes只有一个不为null，由同一套逻辑处理两种输入
+     */
+    private static char charAt(CharSequence chars, byte[] bytes, int i) {
+        return bytes != null ? (char) (bytes[i] & 0xFF) : chars.charAt(i);
+    }
+
+    private static void tokenize(CharSequence chars, byte[] bytes, int start, int end, Visitor visitor) {
+        // 忽略首尾空白
+        while (start < end && charAt(chars, bytes, start) <= ' ') {
+            start++;
+        }
+        while (end > start && charAt(chars, bytes, end - 1) <= ' ') {
+            end--;
+        }
+
+        int pos = scheme(chars, bytes, start, end, visitor);
+        if (pos + 1 < end && charAt(chars, bytes, pos) == '/' && charAt(chars, bytes, pos + 1) == '/') {
+            pos = authority(chars, bytes, pos + 2, end, visitor);
+        }
+        int pathStart = pos;
+        pos = indexOf(chars, bytes, pos, end, '?', '#');
+        tokenizePath(chars, bytes, pathStart, pos, visitor);
+        if (pos < end && charAt(chars, bytes, pos) == '?') {
+            int queryStart = pos + 1;
+            pos = indexOf(chars, bytes, queryStart, end, '#', '#');
+            tokenizeQuery(chars, bytes, queryStart, pos, visitor);
+        }
+        if (pos < end) {
+            visitor.fragment(pos + 1, end);
+        }
+    }
+
+    /**
+     * @return [start, end)中第一个c1或c2的位置，不存在则返回end
+     */
+    private static int indexOf(CharSequence chars, byte[] bytes, int start, int end, char c1, char c2) {
+        for (int i = start; i < end; i++) {
+            char c = charAt(chars, bytes, i);
+            if (c == c1 || c == c2) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * scheme = ALPHA *( ALPHA / DIGIT / "+" / "-" / "." )
+     * @return scheme之后的位置，如果不存在scheme，则返回start
+     */
+    private static int scheme(CharSequence chars, byte[] bytes, int start, int end, Visitor visitor) {
+        if (start >= end || !isAlpha(charAt(chars, bytes, start))) {
+            return start;
+        }
+        for (int i = start + 1; i < end; i++) {
+            char c = charAt(chars, bytes, i);
+            if (c == ':') {
+                visitor.scheme(start, i);
+                return i + 1;
+            }
+            if (!isAlpha(c) && !isDigit(c) && c != '+' && c != '-' && c != '.') {
+                return start;
+            }
+        }
+        return start;
+    }
+
+    /**
+     * authority = [ userinfo "@" ] host [ ":" port ]
+     * @return authority之后的位置
+     */
+    private static int authority(CharSequence chars, byte[] bytes, int start, int end, Visitor visitor) {
+        int at = -1;
+        int colon = -1;
+        boolean inBrackets = false;
+        int pos = start;
+        for (; pos < end; pos++) {
+            char c = charAt(chars, bytes, pos);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            if (c == '@') {
+                at = pos;
+                colon = -1;
+            } else if (c == '[') {
+                inBrackets = true;
+            } else if (c == ']') {
+                inBrackets = false;
+            } else if (c == ':' && !inBrackets) {
+                colon = pos;
+            }
+        }
+
+        int hostStart = start;
+        if (at != -1) {
+            visitor.userInfo(start, at);
+            hostStart = at + 1;
+        }
+        int hostEnd = colon > hostStart ? colon : pos;
+        if (hostEnd > hostStart) {
+            visitor.host(hostStart, hostEnd);
+        }
+        if (colon > hostStart) {
+            visitor.port(colon + 1, pos);
+        }
+        return pos;
+    }
+
+    private static void tokenizePath(CharSequence chars, byte[] bytes, int start, int end, Visitor visitor) {
+        if (!visitor.path(start, end)) {
+            return;
+        }
+        int segmentStart = start;
+        for (int pos = start; pos <= end; pos++) {
+            if (pos == end || charAt(chars, bytes, pos) == '/') {
+                if (pos > segmentStart) {
+                    visitor.segment(segmentStart, pos);
+                }
+                segmentStart = pos + 1;
+            }
+        }
+    }
+
+    private static void tokenizeQuery(CharSequence chars, byte[] bytes, int start, int end, Visitor visitor) {
+        if (!visitor.query(start, end)) {
+            return;
+        }
+        int partStart = start;
+        int equation = -1;
+        for (int pos = start; pos <= end; pos++) {
+            char c = pos < end ? charAt(chars, bytes, pos) : '&';
+            if (c == '=' && equation == -1) {
+                equation = pos;
+            } else if (c == '&') {
+                if (pos > partStart) {
+                    if (equation == -1) {
+                        visitor.param(partStart, pos, -1, -1);
+                    } else {
+                        visitor.param(partStart, equation, equation + 1, pos);
+                    }
+                }
+                partStart = pos + 1;
+                equation = -1;
+            }
+        }
+    }
+
+    private static boolean isAlpha(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+}
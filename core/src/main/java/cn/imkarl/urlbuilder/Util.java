@@ -0,0 +1,135 @@
+package cn.imkarl.urlbuilder;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * 工具类
+ * @version imkarl 2017-04
+ */
+class Util {
+
+    public static boolean isEmpty(String str) {
+        return str == null || str.trim().isEmpty();
+    }
+    public static boolean isNotEmpty(String str) {
+        return !isEmpty(str);
+    }
+
+    public static <T> boolean isEmpty(T[] arr) {
+        return arr == null || arr.length == 0;
+    }
+
+    public static boolean isEmpty(Collection arr) {
+        return arr == null || arr.isEmpty();
+    }
+
+    /**
+     * 与{@link UrlBuilder#encode(String)}相同，供内部使用（不计入{@link UrlMetrics}）
+     */
+    public static String encode(String str) {
+        return PercentCodec.encode(str, PercentCodec.Component.FORM);
+    }
+    /**
+     * 与{@link UrlBuilder#decode(String)}相同，供内部使用（不计入{@link UrlMetrics}）
+     */
+    public static String decode(String str) {
+        return PercentCodec.decode(str, PercentCodec.Component.FORM);
+    }
+
+    /** 按后续字节数索引，多字节UTF-8序列可表示的最小码点，小于该值即为非最短形式（overlong） */
+    private static final int[] UTF8_MIN = {0, 0x80, 0x800, 0x10000};
+
+    /**
+     * UTF-8多字节序列首字节之后的字节数，{@link PercentCodec}和{@link UrlLogScanner}共用
+     * @return 不是合法的首字节（后续字节0x80-0xBF、非最短形式的0xC0/0xC1、超出范围的0xF5-0xFF）时返回-1
+     */
+    public static int utf8Extra(int lead) {
+        if (lead >= 0xC2 && lead <= 0xDF) {
+            return 1;
+        }
+        if ((lead & 0xF0) == 0xE0) {
+            return 2;
+        }
+        if (lead >= 0xF0 && lead <= 0xF4) {
+            return 3;
+        }
+        return -1;
+    }
+    /**
+     * @return 首字节的有效位
+     */
+    public static int utf8LeadBits(int lead, int extra) {
+        return lead & (0x3F >> extra);
+    }
+    /**
+     * 多字节序列解码得到的码点是否合法：必须是最短形式，不能是代理字符（0xED 0xA0-0xBF），不能超过U+10FFFF
+     */
+    public static boolean isValidUtf8(int codePoint, int extra) {
+        return codePoint >= UTF8_MIN[extra] && codePoint <= Character.MAX_CODE_POINT
+                && !(codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE);
+    }
+
+    /**
+     * 非法的多字节序列替换为一个U+FFFD时包含的字节数，之后的字节重新作为首字节处理；与JDK的UTF-8解码器（URLDecoder）一致
+     * @param second 第二个字节，valid为0时不使用
+     * @param valid 首字节之后连续的后续字节（0x80-0xBF）数
+     * @param codePoint valid等于extra（序列完整）时解码得到的码点
+     */
+    public static int utf8MalformedLength(int lead, int second, int extra, int valid, int codePoint) {
+        if (valid == extra) {
+            // 完整但不合法：编码的代理字符整体替换，非最短形式和超出范围只替换首字节
+            return extra == 2 && codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE ? 3 : 1;
+        }
+        if (valid == 0 || (lead == 0xE0 && second < 0xA0) || (lead == 0xF0 && second < 0x90) || (lead == 0xF4 && second >= 0x90)) {
+            return 1;
+        }
+        // 不完整的序列整体替换
+        return 1 + valid;
+    }
+
+    /**
+     * 非负整数的十进制位数
+     */
+    public static int digitCount(long value) {
+        int count = 1;
+        while (value >= 10) {
+            value /= 10;
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 整数的十进制字符数（包括负号），与{@link #appendNumber(Appendable, long)}写入的长度一致
+     */
+    public static int numberLength(long value) {
+        if (value >= 0) {
+            return digitCount(value);
+        }
+        return value == Long.MIN_VALUE ? 20 : 1 + digitCount(-value);
+    }
+
+    /**
+     * 直接写入整数的十进制字符，不产生中间字符串
+     */
+    public static void appendNumber(Appendable out, long value) throws IOException {
+        if (value < 0) {
+            out.append('-');
+            if (value == Long.MIN_VALUE) {
+                out.append("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        while (divisor > 0) {
+            out.append((char) ('0' + value / divisor % 10));
+            divisor /= 10;
+        }
+    }
+
+}
@@ -0,0 +1,73 @@
+package cn.imkarl.urlbuilder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder事件
+ * @version imkarl 2017-04
+ *
+ * Java 11+ 专用实现（Multi-Release JAR）：每次操作输出一个{@link OperationEvent}。
+ * 耗时由{@link UrlMetrics}在操作前后计时，记录在elapsed字段中（事件本身的持续时间为0）
+ */
+final class FlightRecorderEvents {
+
+    @Name("cn.imkarl.urlbuilder.Operation")
+    @Label("URL Operation")
+    @Description("UrlBuilder parse/build/encode operation")
+    @Category("UrlBuilder")
+    @Enabled(false)
+    @StackTrace(false)
+    static final class OperationEvent extends Event {
+        @Label("Operation")
+        String operation;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+
+        @Label("Length")
+        @Description("Input length in chars; output length for BUILD, TO_URI and TO_URL")
+        int length;
+
+        @Label("Components")
+        @Description("Path segments plus query parameters")
+        int components;
+    }
+
+    private static final EventType TYPE = EventType.getEventType(OperationEvent.class);
+
+    private static final UrlMetrics.Listener LISTENER = new UrlMetrics.Listener() {
+        @Override
+        public void onOperation(UrlMetrics.Operation operation, long nanos, int length, int components) {
+            // 未开启时不创建事件对象
+            if (!TYPE.isEnabled()) {
+                return;
+            }
+            OperationEvent event = new OperationEvent();
+            event.operation = operation.name();
+            event.elapsed = nanos;
+            event.length = length;
+            event.components = components;
+            event.commit();
+        }
+    };
+
+    private FlightRecorderEvents() {
+    }
+
+    /**
+     * @return 输出事件的监听器（每次返回同一实例）
+     */
+    static UrlMetrics.Listener listener() {
+        return LISTENER;
+    }
+
+}
@@ -0,0 +1,128 @@
+package cn.imkarl.urlbuilder;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * UrlBatch单元测试
+ */
+public class UrlBatchUnitTest {
+    private static final String TAG = "UrlBatch";
+
+    private static void log(Object msg) {
+        System.out.println(TAG+": "+(msg==null ? "[NULL]" : String.valueOf(msg)));
+    }
+
+    private static final UrlBatch.Binder<Integer> BINDER = new UrlBatch.Binder<Integer>() {
+        @Override
+        public void bind(Integer row, UrlBatch.Row url) {
+            url.appendPath(String.valueOf(row % 100)).appendQuery("page", String.valueOf(row)).appendQuery("wd", "测试");
+        }
+    };
+
+    private static UrlBuilder base() {
+        return new UrlBuilder().scheme("https").host("www.baidu.com").appendPath("/s").appendQuery("ie", "UTF-8").fragment("abc");
+    }
+
+    private static String buildByBuilder(Integer row) {
+        return base().appendPath(String.valueOf(row % 100)).appendQuery("page", String.valueOf(row)).appendQuery("wd", "测试").build();
+    }
+
+
+    @Test
+    public void testBatch() throws Exception {
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(i);
+        }
+        List<String> urls = UrlBuilder.batch(base()).build(rows, BINDER);
+
+        log("------------ testBatch ------------");
+        log("buildUrl=\t"+urls.get(1));
+        for (int i = 0; i < rows.size(); i++) {
+            assertTrue(buildByBuilder(rows.get(i)).equals(urls.get(i)));
+        }
+    }
+
+    @Test
+    public void testNestedBatch() throws Exception {
+        final UrlBatch batch = UrlBuilder.batch(base());
+        final List<Integer> inner = new ArrayList<>();
+        inner.add(7);
+        final List<String> nested = new ArrayList<>();
+        List<Integer> rows = new ArrayList<>();
+        rows.add(1);
+        rows.add(2);
+
+        // 在binder中使用同一个UrlBatch，不能覆盖外层正在写入的缓冲区
+        List<String> urls = batch.build(rows, new UrlBatch.Binder<Integer>() {
+            @Override
+            public void bind(Integer row, UrlBatch.Row url) {
+                url.appendPath(String.valueOf(row));
+                nested.addAll(batch.build(inner, BINDER));
+                url.appendQuery("n", String.valueOf(row));
+            }
+        });
+
+        log("------------ testNestedBatch ------------");
+        log(urls);
+        assertTrue(urls.get(0).equals(base().appendPath("1").appendQuery("n", "1").build()));
+        assertTrue(nested.size() == 2 && nested.get(0).equals(buildByBuilder(7)));
+    }
+
+    @Test
+    public void testVerbatimBase() throws Exception {
+        UrlBuilder base = UrlBuilder.parse("http://h/p").appendEncodedPath("a%20b~c")
+                .appendEncodedQuery("sig", "a%20b~c").encodedFragment("x%20y");
+        List<Integer> rows = new ArrayList<>();
+        rows.add(1);
+        List<String> urls = UrlBuilder.batch(base).build(rows, BINDER);
+        String expected = base.appendPath("1").appendQuery("page", "1").appendQuery("wd", "测试").build();
+
+        log("------------ testVerbatimBase ------------");
+        log("buildUrl=\t"+urls.get(0));
+        assertTrue(expected.equals(urls.get(0)));
+        assertTrue(urls.get(0).startsWith("http://h/p/a%20b~c/1?sig=a%20b~c&") && urls.get(0).endsWith("#x%20y"));
+    }
+
+    @Test
+    public void testParallelForEach() throws Exception {
+        final int count = 20000;
+        List<Integer> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(i);
+        }
+        final ConcurrentLinkedQueue<String> built = new ConcurrentLinkedQueue<>();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            UrlBuilder.batch(base()).parallelForEach(rows, BINDER, new UrlBatch.Sink() {
+                @Override
+                public void accept(CharSequence url) {
+                    built.add(url.toString());
+                }
+            }, pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        List<String> expected = new ArrayList<>(count);
+        for (Integer row : rows) {
+            expected.add(buildByBuilder(row));
+        }
+        List<String> actual = new ArrayList<>(built);
+        Collections.sort(expected);
+        Collections.sort(actual);
+
+        log("------------ testParallelForEach ------------");
+        log("urls=\t"+actual.size());
+        assertTrue(expected.equals(actual));
+    }
+
+}
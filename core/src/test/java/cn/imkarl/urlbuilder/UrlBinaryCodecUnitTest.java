@@ -0,0 +1,222 @@
+package cn.imkarl.urlbuilder;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * UrlBinaryCodec单元测试
+ */
+public class UrlBinaryCodecUnitTest {
+    private static final String TAG = "UrlBinaryCodec";
+
+    private static void log(Object msg) {
+        System.out.println(TAG+": "+(msg==null ? "[NULL]" : String.valueOf(msg)));
+    }
+
+    private static final List<String> HOSTS = Arrays.asList("www.baidu.com", "api.example.com");
+    private static final List<String> KEYS = Arrays.asList("utm_source", "utm_medium", "page", "size");
+
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        UrlBinaryCodec codec = new UrlBinaryCodec();
+        UrlBuilder url = new UrlBuilder().scheme("https").userInfo("user:pass").host("www.baidu.com").port(8090)
+                .appendPath("s").appendPath("测试").appendQuery("wd", "测试").appendQuery("wd", "+&=").appendQuery("ie", "")
+                .fragment("a b");
+        url.getPath().endTag(true);
+
+        byte[] bytes = codec.encode(url);
+        UrlBuilder decoded = codec.decode(bytes);
+
+        log("------------ testRoundTrip ------------");
+        log(url.build()+"\t=>\t"+bytes.length+" bytes");
+        assertSame(url, decoded);
+
+        UrlBuilder custom = new UrlBuilder().scheme("git+ssh").host("example.com");
+        assertSame(custom, codec.decode(codec.encode(custom)));
+        UrlBuilder empty = new UrlBuilder();
+        assertSame(empty, codec.decode(codec.encode(empty)));
+        UrlBuilder emptyParts = new UrlBuilder().host("a.com").path(new UrlPath()).query(new UrlQuery());
+        assertSame(emptyParts, codec.decode(codec.encode(emptyParts)));
+    }
+
+    @Test
+    public void testStreams() throws Exception {
+        UrlBinaryCodec codec = new UrlBinaryCodec(HOSTS, KEYS);
+        List<UrlBuilder> urls = randomUrls(new Random(3), 500);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        for (UrlBuilder url : urls) {
+            codec.write(url, out);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        for (UrlBuilder url : urls) {
+            assertSame(url, codec.read(in));
+        }
+        assertTrue(in.read() == -1);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.size());
+        for (UrlBuilder url : urls) {
+            codec.write(url, buffer);
+        }
+        buffer.flip();
+        for (UrlBuilder url : urls) {
+            assertSame(url, codec.read(buffer));
+        }
+        assertTrue(!buffer.hasRemaining());
+
+        log("------------ testStreams ------------");
+        log(urls.size()+" urls\t=>\t"+bytes.size()+" bytes");
+    }
+
+    @Test
+    public void testMalformed() throws Exception {
+        UrlBinaryCodec codec = new UrlBinaryCodec(HOSTS, KEYS);
+        byte[] bytes = codec.encode(UrlBuilder.parse("https://www.baidu.com/s?page=1&wd=test#abc"));
+
+        log("------------ testMalformed ------------");
+        for (int length = 0; length < bytes.length; length++) {
+            try {
+                codec.decode(Arrays.copyOf(bytes, length));
+                assertTrue(false);
+            } catch (IllegalArgumentException e) {
+                // 数据不完整
+            }
+        }
+        try {
+            // 字典不一致
+            new UrlBinaryCodec().decode(bytes);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            log(e.getMessage());
+        }
+
+        // 字符串长度远大于剩余的数据：flags、CUSTOM scheme、varint(0x7FFFFFFF)
+        byte[] huge = {0, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 'h', 't'};
+        try {
+            codec.decode(huge);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            log(e.getMessage());
+        }
+        try {
+            codec.read(new DataInputStream(new ByteArrayInputStream(huge)));
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            log(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testSizeAndSpeed() throws Exception {
+        UrlBinaryCodec codec = new UrlBinaryCodec(HOSTS, KEYS);
+        List<UrlBuilder> urls = randomUrls(new Random(5), 2000);
+        List<String> strings = new ArrayList<>();
+        List<byte[]> binaries = new ArrayList<>();
+        long stringSize = 0;
+        long binarySize = 0;
+        for (UrlBuilder url : urls) {
+            String str = url.build();
+            byte[] bin = codec.encode(url);
+            strings.add(str);
+            binaries.add(bin);
+            stringSize += str.getBytes(StandardCharsets.UTF_8).length;
+            binarySize += bin.length;
+        }
+
+        // 预热
+        for (int i = 0; i < 5; i++) {
+            for (int n = 0; n < urls.size(); n++) {
+                UrlBuilder.parse(strings.get(n));
+                codec.decode(binaries.get(n));
+            }
+        }
+        long start = System.nanoTime();
+        for (String str : strings) {
+            UrlBuilder.parse(str);
+        }
+        long parseTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (byte[] bin : binaries) {
+            codec.decode(bin);
+        }
+        long decodeTime = System.nanoTime() - start;
+
+        log("------------ testSizeAndSpeed ------------");
+        log("string=\t"+stringSize+" bytes\tparse=\t"+parseTime/urls.size()+" ns/url");
+        log("binary=\t"+binarySize+" bytes\tdecode=\t"+decodeTime/urls.size()+" ns/url");
+        assertTrue(binarySize < stringSize);
+    }
+
+
+    private static void assertSame(UrlBuilder expected, UrlBuilder actual) {
+        assertTrue(equals(expected.getScheme(), actual.getScheme()));
+        assertTrue(equals(expected.getUserInfo(), actual.getUserInfo()));
+        assertTrue(equals(expected.getHost(), actual.getHost()));
+        assertTrue(expected.getPort() == actual.getPort());
+        assertTrue(equals(expected.getFragment(), actual.getFragment()));
+        assertTrue((expected.getPath() == null) == (actual.getPath() == null));
+        if (expected.getPath() != null) {
+            assertTrue(expected.getPath().isEndTag() == actual.getPath().isEndTag());
+            assertTrue(expected.getPath().build(false).equals(actual.getPath().build(false)));
+        }
+        assertTrue((expected.getQuery() == null) == (actual.getQuery() == null));
+        if (expected.getQuery() != null) {
+            assertTrue(expected.getQuery().getParams().equals(actual.getQuery().getParams()));
+        }
+        if (expected.getHost() != null) {
+            assertTrue(expected.build().equals(actual.build()));
+        }
+    }
+
+    private static boolean equals(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private static List<UrlBuilder> randomUrls(Random random, int count) {
+        final String[] schemes = {null, "http", "https", "ftp", "custom"};
+        final String[] hosts = {"www.baidu.com", "api.example.com", "测试.example.cn", "other.org"};
+        final String[] keys = {"utm_source", "utm_medium", "page", "size", "关键字", "q"};
+        final String[] words = {"index", "users", "订单", "a b", "~!*'()", "😀", "x%2Fy", "v2"};
+
+        List<UrlBuilder> urls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UrlBuilder url = new UrlBuilder().scheme(schemes[random.nextInt(schemes.length)])
+                    .host(hosts[random.nextInt(hosts.length)]);
+            if (random.nextInt(4) == 0) {
+                url.port(random.nextInt(65536));
+            }
+            if (random.nextInt(10) == 0) {
+                url.userInfo("user:" + words[random.nextInt(words.length)]);
+            }
+            for (int n = random.nextInt(5); n > 0; n--) {
+                url.appendPath(words[random.nextInt(words.length)]);
+            }
+            if (url.getPath() != null) {
+                url.getPath().endTag(random.nextBoolean());
+            }
+            for (int n = random.nextInt(8); n > 0; n--) {
+                url.appendQuery(keys[random.nextInt(keys.length)], words[random.nextInt(words.length)] + random.nextInt(1000));
+            }
+            if (random.nextInt(3) == 0) {
+                url.fragment(words[random.nextInt(words.length)]);
+            }
+            urls.add(url);
+        }
+        return urls;
+    }
+
+}
@@ -0,0 +1,75 @@
+package cn.imkarl.urlbuilder;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * UrlCanonicalizer单元测试
+ */
+public class UrlCanonicalizerUnitTest {
+    private static final String TAG = "UrlCanonicalizer";
+
+    private static void log(Object msg) {
+        System.out.println(TAG+": "+(msg==null ? "[NULL]" : String.valueOf(msg)));
+    }
+
+
+    @Test
+    public void testCanonicalize() throws Exception {
+        final String[] urls = {
+                "http://www.example.com/a/c?a=1&b=2",
+                "HTTP://WWW.Example.COM:80/a/./b/../c?b=2&a=1&a=1",
+                "http://www.example.com/a/c/..//c?b=2&a=1",
+                "http://www.example.com/a/c?a=%31&b=%32",
+        };
+
+        log("------------ testCanonicalize ------------");
+        String expected = urls[0];
+        for (String url : urls) {
+            String canonical = UrlBuilder.parse(url).canonicalize();
+            log(url+"\t=>\t"+canonical);
+            assertTrue(expected.equals(canonical));
+        }
+    }
+
+    @Test
+    public void testNullValues() throws Exception {
+        UrlBuilder url = UrlBuilder.parse("http://a.com/")
+                .query(UrlQuery.from(new Part<>("a", (String) null), new Part<>("a", (String) null), new Part<>("a", "")));
+        String canonical = new UrlCanonicalizer().canonicalize(url);
+        log("------------ testNullValues ------------");
+        log(canonical);
+        assertTrue("http://a.com/?a=".equals(canonical));
+    }
+
+    @Test
+    public void testDotSegments() throws Exception {
+        log("------------ testDotSegments ------------");
+        assertTrue("http://a.com/".equals(UrlBuilder.parse("http://a.com/..").canonicalize()));
+        assertTrue("http://a.com/a/".equals(UrlBuilder.parse("http://a.com/a/b/..").canonicalize()));
+        assertTrue("http://a.com/a/b/".equals(UrlBuilder.parse("http://a.com/a/b/.").canonicalize()));
+        assertTrue("http://a.com/b".equals(UrlBuilder.parse("http://a.com/../../b").canonicalize()));
+    }
+
+    @Test
+    public void testRules() throws Exception {
+        UrlBuilder url = UrlBuilder.parse("HTTPS://Example.com:443/x/../a b~?z=1&a=%7E&a=%7E#frag ment");
+
+        UrlCanonicalizer all = new UrlCanonicalizer();
+        UrlCanonicalizer none = new UrlCanonicalizer().lowercase(false).dropDefaultPort(false)
+                .removeDotSegments(false).sortQuery(false).dedupeQuery(false).normalizeEncoding(false);
+
+        log("------------ testRules ------------");
+        log("all=\t"+url.canonicalize(all));
+        log("none=\t"+url.canonicalize(none));
+        assertTrue("https://example.com/a%20b~?a=~&z=1#frag%20ment".equals(url.canonicalize(all)));
+        assertTrue("HTTPS://Example.com:443/x/../a+b%7E?z=1&a=%7E&a=%7E#frag+ment".equals(url.canonicalize(none)));
+        assertTrue("https://example.com/a%20b~?z=1&a=~#frag%20ment".equals(url.canonicalize(new UrlCanonicalizer().sortQuery(false))));
+        assertTrue("https://example.com:8443/".equals(UrlBuilder.parse("https://example.com:8443").canonicalize()));
+
+        // 不修改原对象
+        assertTrue("HTTPS://Example.com:443/x/../a+b%7E?z=1&a=%7E&a=%7E#frag+ment".equals(url.build()));
+    }
+
+}
@@ -0,0 +1,83 @@
+package cn.imkarl.urlbuilder;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * UrlFingerprint单元测试
+ */
+public class UrlFingerprintUnitTest {
+    private static final String TAG = "UrlFingerprint";
+
+    private static void log(Object msg) {
+        System.out.println(TAG+": "+(msg==null ? "[NULL]" : String.valueOf(msg)));
+    }
+
+
+    @Test
+    public void testKnownValues() throws Exception {
+        log("------------ testKnownValues ------------");
+        assertTrue(UrlFingerprint.hash64("") == 0);
+        assertTrue(UrlFingerprint.hash64("hell") == 0x629942693e10f867L);
+        long[] fox = UrlFingerprint.hash128("The quick brown fox jumps over the lazy dog");
+        log(Long.toHexString(fox[0])+"\t"+Long.toHexString(fox[1]));
+        assertTrue(fox[0] == 0xe34bbc7bbc071b6cL);
+        assertTrue(fox[1] == 0x7a433ca9c49a9347L);
+        long[] nonAscii = UrlFingerprint.hash128("测试😀");
+        assertTrue(nonAscii[0] == 0xd56febbc35d3ad8fL);
+        assertTrue(nonAscii[1] == 0x377d64054898cd22L);
+        // 不成对的代理字符按'?'处理
+        assertTrue(UrlFingerprint.hash64("a\uD83D") == UrlFingerprint.hash64("a?"));
+        assertTrue(UrlFingerprint.hash64("\uDE00b") == UrlFingerprint.hash64("?b"));
+    }
+
+    @Test
+    public void testSameAsBuild() throws Exception {
+        UrlBuilder urlBuilder = new UrlBuilder().scheme("https").host("www.baidu.com").appendPath("s").appendQuery("wd", "测试");
+        log("------------ testSameAsBuild ------------");
+        log(urlBuilder.build()+"\t=>\t"+Long.toHexString(urlBuilder.fingerprint64()));
+        // https://www.baidu.com/s?wd=%E6%B5%8B%E8%AF%95
+        assertTrue(urlBuilder.fingerprint64() == 0x576a292553d221e8L);
+
+        Random random = new Random(7);
+        for (int i = 0; i < 200; i++) {
+            UrlBuilder url = new UrlBuilder().host("host" + random.nextInt(100) + ".example.com");
+            for (int n = random.nextInt(4); n > 0; n--) {
+                url.appendPath(randomString(random));
+            }
+            for (int n = random.nextInt(6); n > 0; n--) {
+                url.appendQuery(randomString(random), randomString(random));
+            }
+            String built = url.build();
+            assertTrue(url.fingerprint64() == UrlFingerprint.hash64(built));
+            long[] expected = UrlFingerprint.hash128(built);
+            long[] actual = url.fingerprint128();
+            assertTrue(expected[0] == actual[0] && expected[1] == actual[1]);
+            if (url.getPath() != null) {
+                assertTrue(url.getPath().fingerprint64() == UrlFingerprint.hash64(url.getPath().build()));
+            }
+            if (url.getQuery() != null) {
+                assertTrue(url.getQuery().fingerprint64() == UrlFingerprint.hash64(url.getQuery().build()));
+            }
+        }
+        assertTrue(new UrlPath().fingerprint64() == 0);
+        assertTrue(new UrlQuery().fingerprint64() == 0);
+    }
+
+    private static String randomString(Random random) {
+        final String chars = "abcXYZ019 -_.~!*'()&=+/?#%测试Ü";
+        StringBuilder builder = new StringBuilder();
+        for (int i = random.nextInt(20) + 1; i > 0; i--) {
+            if (random.nextInt(30) == 0) {
+                builder.append("😀");
+            } else {
+                builder.append(chars.charAt(random.nextInt(chars.length())));
+            }
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,218 @@
+package cn.imkarl.urlbuilder;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * UrlLogScanner单元测试
+ */
+public class UrlLogScannerUnitTest {
+    private static final String TAG = "UrlLogScanner";
+
+    private static void log(Object msg) {
+        System.out.println(TAG+": "+(msg==null ? "[NULL]" : String.valueOf(msg)));
+    }
+
+    /**
+     * 生成访问日志，返回其中每一行请求的URL
+     */
+    private static List<String> writeLog(File file, int lines) throws Exception {
+        final String[] hosts = {"", "http://www.baidu.com", "https://user@测试.com:8443"};
+        final String[] paths = {"/", "/s", "/a/%E6%B5%8B%E8%AF%95/", "/路径/b", "/x//y"};
+        final String[] queries = {"", "?wd=test", "?ie=UTF-8&wd=%E6%B5%8B%E8%AF%95&wd=two", "?a+b=c+d&flag", "?k=值#frag"};
+        Random random = new Random(2017);
+        List<String> urls = new ArrayList<>();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+            for (int i = 0; i < lines; i++) {
+                String url = hosts[random.nextInt(hosts.length)] + paths[random.nextInt(paths.length)]
+                        + queries[random.nextInt(queries.length)];
+                writer.write("127.0.0.1 - - [10/Apr/2017:13:55:36 +0800] \"GET " + url + " HTTP/1.1\" 200 " + i
+                        + (i % 3 == 0 ? "\r\n" : "\n"));
+                urls.add(url);
+                if (i % 100 == 0) {
+                    // 没有请求行的行会被忽略
+                    writer.write("# comment\n\n\"-\" 400 0\n");
+                }
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * 相对URL没有host，补充后再构建
+     */
+    private static String build(UrlBuilder url) {
+        return (url.getHost() == null ? url.host("relative") : url).build();
+    }
+
+    @Test
+    public void testScanUrlBuilder() throws Exception {
+        File file = File.createTempFile("access", ".log");
+        try {
+            List<String> urls = writeLog(file, 5000);
+            final ConcurrentLinkedQueue<String> built = new ConcurrentLinkedQueue<>();
+            new UrlLogScanner().chunkSize(4096).scan(file, new UrlLogScanner.Sink() {
+                @Override
+                public void accept(UrlBuilder url) {
+                    built.add(build(url));
+                }
+            }, new ForkJoinPool(4));
+
+            List<String> expected = new ArrayList<>();
+            for (String url : urls) {
+                expected.add(build(UrlBuilder.parse(url)));
+            }
+            List<String> actual = new ArrayList<>(built);
+            Collections.sort(expected);
+            Collections.sort(actual);
+
+            log("------------ testScanUrlBuilder ------------");
+            log("file=\t"+file.length()+" bytes, urls="+actual.size());
+            assertTrue(expected.equals(actual));
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    /**
+     * 只统计host，不创建UrlBuilder
+     */
+    private static final class HostCounter extends UrlLogScanner.Visitor {
+        int urls;
+        int hosts;
+        int params;
+
+        @Override
+        public boolean begin(byte[] bytes, int start, int end) {
+            urls++;
+            return true;
+        }
+        @Override
+        public void host(int start, int end) {
+            hosts++;
+        }
+        @Override
+        public boolean path(int start, int end) {
+            return false;
+        }
+        @Override
+        public void param(int keyStart, int keyEnd, int valueStart, int valueEnd) {
+            params++;
+        }
+    }
+
+    @Test
+    public void testScanEvents() throws Exception {
+        File file = File.createTempFile("urls", ".txt");
+        try {
+            try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8")) {
+                for (int i = 0; i < 10000; i++) {
+                    writer.write(i % 2 == 0 ? "  http://www.baidu.com/s?wd=" + i + "&ie=UTF-8\n" : "/relative?a=" + i + "\n");
+                }
+            }
+            List<HostCounter> counters = new UrlLogScanner()
+                    .extractor(UrlLogScanner.WHOLE_LINE)
+                    .chunkSize(1000)
+                    .scan(file, new UrlLogScanner.Factory<HostCounter>() {
+                        @Override
+                        public HostCounter create() {
+                            return new HostCounter();
+                        }
+                    }, new ForkJoinPool());
+
+            int urls = 0;
+            int hosts = 0;
+            int params = 0;
+            for (HostCounter counter : counters) {
+                urls += counter.urls;
+                hosts += counter.hosts;
+                params += counter.params;
+            }
+
+            log("------------ testScanEvents ------------");
+            log("chunks="+counters.size()+", urls="+urls+", hosts="+hosts+", params="+params);
+            assertTrue(counters.size() > 100);
+            assertTrue(urls == 10000 && hosts == 5000 && params == 15000);
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testMalformedUtf8() throws Exception {
+        File file = File.createTempFile("malformed", ".txt");
+        try {
+            // 超长编码、代理字符、截断的序列等，解码结果应与new String(bytes, UTF-8)一致
+            Random random = new Random(17);
+            List<String> expected = new ArrayList<>();
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                for (int i = 0; i < 2000; i++) {
+                    byte[] line = new byte[1 + random.nextInt(8)];
+                    for (int k = 0; k < line.length; k++) {
+                        line[k] = random.nextInt(4) == 0 ? (byte) 'a' : (byte) (0x80 + random.nextInt(0x80));
+                    }
+                    if (i == 0) {
+                        line = new byte[]{(byte) 0xC0, (byte) 0xAE, (byte) 0xED, (byte) 0xA0, (byte) 0x80, (byte) 0xF4, (byte) 0x90, (byte) 0x80, (byte) 0x80};
+                    }
+                    out.write(("http://h/" + i + "/").getBytes("UTF-8"));
+                    out.write(line);
+                    out.write('\n');
+                    expected.add(build(UrlBuilder.parse("http://h/" + i + "/" + new String(line, "UTF-8"))));
+                }
+            }
+            final ConcurrentLinkedQueue<String> built = new ConcurrentLinkedQueue<>();
+            new UrlLogScanner().extractor(UrlLogScanner.WHOLE_LINE).scan(file, new UrlLogScanner.Sink() {
+                @Override
+                public void accept(UrlBuilder url) {
+                    built.add(build(url));
+                }
+            }, new ForkJoinPool(2));
+            List<String> actual = new ArrayList<>(built);
+            Collections.sort(expected);
+            Collections.sort(actual);
+
+            log("------------ testMalformedUtf8 ------------");
+            assertTrue(expected.equals(actual));
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testEmptyAndInvalid() throws Exception {
+        File file = File.createTempFile("empty", ".log");
+        try {
+            List<HostCounter> counters = new UrlLogScanner().scan(file, new UrlLogScanner.Factory<HostCounter>() {
+                @Override
+                public HostCounter create() {
+                    return new HostCounter();
+                }
+            }, new ForkJoinPool());
+
+            log("------------ testEmptyAndInvalid ------------");
+            assertTrue(counters.isEmpty());
+        } finally {
+            assertTrue(file.delete());
+        }
+
+        try {
+            new UrlLogScanner().chunkSize(0);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            log(e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,183 @@
+package cn.imkarl.urlbuilder;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * UrlQuery单元测试
+ */
+public class UrlQueryUnitTest {
+    private static final String TAG = "UrlQuery";
+
+    private static void log(Object msg) {
+        System.out.println(TAG+": "+(msg==null ? "[NULL]" : String.valueOf(msg)));
+    }
+
+
+    @Test
+    public void testGetAndRemove() throws Exception {
+        UrlQuery query = new UrlQuery()
+                .append("ie", "UTF-8")
+                .append("abc", "one")
+                .append("wd", "test")
+                .append("abc", "two");
+
+        log("------------ testGetAndRemove ------------");
+        log("query=\t"+query);
+        assertTrue("one".equals(query.get("abc")));
+        assertTrue(query.getAll("abc").size() == 2);
+        assertTrue(query.contains("wd"));
+        assertTrue(query.get("none") == null);
+
+        query.remove("abc").put("ie", "GBK");
+        log("query=\t"+query);
+        assertTrue("wd=test&ie=GBK".equals(query.build()));
+        assertTrue(query.size() == 2);
+        assertTrue(!query.contains("abc"));
+    }
+
+    @Test
+    public void testRandomOperations() throws Exception {
+        Random random = new Random(2017);
+        UrlQuery query = new UrlQuery();
+        List<Part<String, String>> expected = new ArrayList<>();
+
+        for (int i = 0; i < 20000; i++) {
+            String key = "k" + random.nextInt(300);
+            String value = "v" + i;
+            switch (random.nextInt(3)) {
+                case 0:
+                    query.append(key, value);
+                    expected.add(new Part<>(key, value));
+                    break;
+                case 1:
+                    query.put(key, value);
+                    removeAll(expected, key);
+                    expected.add(new Part<>(key, value));
+                    break;
+                default:
+                    query.remove(key);
+                    removeAll(expected, key);
+                    break;
+            }
+        }
+
+        log("------------ testRandomOperations ------------");
+        log("size=\t"+query.size());
+        assertTrue(expected.equals(query.getParams()));
+    }
+
+    @Test
+    public void testParamsView() throws Exception {
+        UrlQuery query = new UrlQuery().append("a", "1").append("b", 2);
+        java.util.List<Part<String, String>> params = query.getParams();
+
+        log("------------ testParamsView ------------");
+        assertTrue(params.size() == 2 && "b".equals(params.get(1).getKey()) && "2".equals(params.get(1).getValue()));
+        // 视图随修改而变化
+        query.put("a", "x").append("c", "3");
+        log(params);
+        assertTrue(params.size() == 3);
+        assertTrue("b".equals(params.get(0).getKey()) && "x".equals(params.get(1).getValue()) && "c".equals(params.get(2).getKey()));
+        // 只读，直接修改会失败而不是被忽略
+        try {
+            params.add(new Part<>("d", "4"));
+            assertTrue(false);
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+            params.remove(0);
+            assertTrue(false);
+        } catch (UnsupportedOperationException expected) {
+        }
+        assertTrue(query.size() == 3);
+    }
+
+    @Test
+    public void testNumbers() throws Exception {
+        UrlQuery query = new UrlQuery()
+                .append("id", 42L)
+                .append("neg", -7)
+                .append("min", Long.MIN_VALUE)
+                .append("flag", true)
+                .append("ratio", 0.5)
+                .append("page", "1")
+                .put("page", 2)
+                .append("page", 3);
+
+        log("------------ testNumbers ------------");
+        log("query=\t"+query.build());
+        assertTrue(("id=42&neg=-7&min=-9223372036854775808&flag=true&ratio=0.5&page=2&page=3").equals(query.build()));
+        assertTrue(query.build().equals(query.build(false)));
+        assertTrue(query.encodedLength() == query.build().length());
+        assertTrue("42".equals(query.get("id")));
+        assertTrue(query.getAll("page").equals(java.util.Arrays.asList("2", "3")));
+        assertTrue("-7".equals(query.getParams().get(1).getValue()));
+
+        // 数值与相同内容的字符串视为相同的参数值
+        String canonical = new UrlBuilder().host("h").query(new UrlQuery().append("a", "1").append("a", 1).append("a", 1)).canonicalize();
+        log("canonical=\t"+canonical);
+        assertTrue(canonical.endsWith("?a=1"));
+
+        // 扩容、删除后仍然正确
+        query.clear();
+        for (int i = 0; i < 100; i++) {
+            query.append("k" + (i % 10), i);
+        }
+        query.remove("k0").put("k1", "x");
+        assertTrue(query.size() == 81 && "9".equals(query.get("k9")) && "x".equals(query.get("k1")));
+        assertTrue(query.encodedLength() == query.build().length());
+    }
+
+    @Test
+    public void testExtract() throws Exception {
+        final String raw = "?utm_source=news&wd=%E6%B5%8B%E8%AF%95&flag&utm_source=other&a+b=c+d&sig=x%3Dy#utm_medium=no";
+        String[] values = UrlQuery.extract(raw, "sig", "utm_source", "flag", "a b", "utm_medium", "wd", "none", null);
+
+        log("------------ testExtract ------------");
+        log(java.util.Arrays.toString(values));
+        assertTrue("x=y".equals(values[0]));
+        assertTrue("news".equals(values[1]));
+        assertTrue("".equals(values[2]));
+        assertTrue("c d".equals(values[3]));
+        assertTrue(values[4] == null);
+        assertTrue("测试".equals(values[5]));
+        assertTrue(values[6] == null && values[7] == null);
+        assertTrue(UrlQuery.extract(null, "a")[0] == null);
+        assertTrue(UrlQuery.extract("", "a")[0] == null);
+
+        // 与完整解析的结果一致
+        Random random = new Random(17);
+        final String[] pieces = {"a", "b", "%41", "+", "%20", "=", "&", "测", "%E6%B5%8B", "%zz", " "};
+        for (int n = 0; n < 2000; n++) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = random.nextInt(12); i > 0; i--) {
+                builder.append(pieces[random.nextInt(pieces.length)]);
+            }
+            String query = builder.toString();
+            UrlQuery parsed = UrlBuilder.parse("http://www.baidu.com/?" + query).getQuery();
+            String[] keys = {"a", "b", "A", "a b", "测", "%zz", "ab"};
+            String[] extracted = UrlQuery.extract(query, keys);
+            for (int i = 0; i < keys.length; i++) {
+                String expected = parsed == null ? null : parsed.get(keys[i]);
+                assertTrue(query, expected == null ? extracted[i] == null : expected.equals(extracted[i]));
+            }
+        }
+    }
+
+    private static void removeAll(List<Part<String, String>> params, String key) {
+        Iterator<Part<String, String>> it = params.iterator();
+        while (it.hasNext()) {
+            if (it.next().getKey().equals(key)) {
+                it.remove();
+            }
+        }
+    }
+
+}
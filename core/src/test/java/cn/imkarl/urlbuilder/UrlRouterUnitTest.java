@@ -0,0 +1,170 @@
+package cn.imkarl.urlbuilder;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * UrlRouter单元测试
+ */
+public class UrlRouterUnitTest {
+    private static final String TAG = "UrlRouter";
+
+    private static void log(Object msg) {
+        System.out.println(TAG+": "+(msg==null ? "[NULL]" : String.valueOf(msg)));
+    }
+
+
+    @Test
+    public void testMatch() throws Exception {
+        UrlRouter<String> router = new UrlRouter.Builder<String>()
+                .add("/", "root")
+                .add("/users", "users")
+                .add("/users/me", "me")
+                .add("/users/{id}", "user")
+                .add("/users/{id}/orders/{orderId}", "order")
+                .add("/users/{uid}/profile", "profile")
+                .add("/static/*", "static")
+                .add("/*", "fallback")
+                .build();
+
+        log("------------ testMatch ------------");
+        assertTrue(router.size() == 8);
+        assertTrue("root".equals(router.match("/").getValue()));
+        assertTrue("users".equals(router.match("/users/").getValue()));
+        // 常量优先于变量
+        assertTrue("me".equals(router.match("/users/me").getValue()));
+
+        UrlRouter.Match<String> user = router.match("/users/%E6%B5%8B%E8%AF%95");
+        log(user);
+        assertTrue("user".equals(user.getValue()));
+        assertTrue("测试".equals(user.getParam("id")));
+        assertTrue(user.getParamCount() == 1 && "id".equals(user.getParamName(0)));
+
+        UrlRouter.Match<String> order = router.match(new UrlPath().append("users").append("7").append("orders").append("42"));
+        log(order);
+        assertTrue("order".equals(order.getValue()));
+        assertTrue("7".equals(order.getParam("id")) && "42".equals(order.getParam("orderId")));
+        assertTrue(order.getParam("uid") == null);
+
+        // 同一位置变量名可以不同
+        assertTrue("7".equals(router.match("/users/7/profile").getParam("uid")));
+        // "me"分支失败后回溯到变量分支
+        assertTrue("order".equals(router.match("/users/me/orders/1").getValue()));
+
+        UrlRouter.Match<String> file = router.match("/static/css/a b.css");
+        assertTrue("static".equals(file.getValue()));
+        assertTrue("css/a b.css".equals(file.getParam(UrlRouter.WILDCARD)));
+        assertTrue("".equals(router.match("/static").getParam("*")));
+        // 都不匹配时使用通配
+        assertTrue("users/7/unknown".equals(router.match("/users/7/unknown").getParam("*")));
+
+        UrlRouter<String> strict = new UrlRouter.Builder<String>().add("/a/{b}", "ab").build();
+        assertTrue(strict.match("/a") == null);
+        assertTrue(strict.match("/a/b/c") == null);
+        assertTrue(strict.match((UrlPath) null) == null);
+    }
+
+    @Test
+    public void testBacktrack() throws Exception {
+        // 每一层都有常量和变量两个分支，只有最深处能区分
+        UrlRouter.Builder<String> builder = new UrlRouter.Builder<>();
+        StringBuilder literal = new StringBuilder();
+        StringBuilder params = new StringBuilder();
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < 24; i++) {
+            literal.append("/a");
+            params.append("/{p").append(i).append('}');
+            path.append("/a");
+            builder.add(literal + "/z", "literal" + i);
+            builder.add(params + "/y", "params" + i);
+        }
+        UrlRouter<String> router = builder.add(new UrlPath().append("a").append("b"), "path").build();
+
+        log("------------ testBacktrack ------------");
+        assertTrue("literal23".equals(router.match(path + "/z").getValue()));
+        UrlRouter.Match<String> match = router.match(path + "/y");
+        log(match.getPattern());
+        assertTrue("params23".equals(match.getValue()) && "a".equals(match.getParam("p23")));
+        assertTrue(router.match(path + "/x") == null);
+        assertTrue(router.match(path + "/a/y") == null);
+        // 由UrlPath注册的路由
+        assertTrue("/a/b".equals(router.match("/a/b").getPattern()));
+    }
+
+    @Test
+    public void testInvalid() throws Exception {
+        final String[][] invalid = {
+                {"/a/*/b"}, {"/a/{}"}, {"/a/{x}/{x}"}, {"/a/{x}", "/a/{y}"}, {"/a/*", "/a/*"}, {"/a", "a/"}
+        };
+        log("------------ testInvalid ------------");
+        for (String[] patterns : invalid) {
+            UrlRouter.Builder<String> builder = new UrlRouter.Builder<>();
+            try {
+                for (String pattern : patterns) {
+                    builder.add(pattern, pattern);
+                }
+                assertTrue(false);
+            } catch (IllegalArgumentException e) {
+                log(e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testLargeAndConcurrent() throws Exception {
+        Map<String, Integer> routes = new LinkedHashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            routes.put("/api/v" + (i % 5) + "/resource" + i + "/{id}/items/{item}", i);
+        }
+        final UrlRouter<Integer> router = new UrlRouter.Builder<Integer>().addAll(routes).build();
+        assertTrue(router.size() == routes.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int seed = t;
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        for (int i = seed; i < 5000; i += 4) {
+                            UrlRouter.Match<Integer> match = router.match("/api/v" + (i % 5) + "/resource" + i + "/" + i + "/items/x");
+                            if (match == null || match.getValue() != i || !String.valueOf(i).equals(match.getParam("id"))) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                assertTrue(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<String> segments = UrlPath.parse("/api/v3/resource4998/1/items/2").getSegments();
+        for (int i = 0; i < 100000; i++) {
+            router.match(segments);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < 100000; i++) {
+            router.match(segments);
+        }
+        log("------------ testLargeAndConcurrent ------------");
+        log(routes.size()+" routes\tmatch=\t"+(System.nanoTime() - start) / 100000+" ns");
+        assertTrue(router.match(segments).getValue() == 4998);
+    }
+
+}
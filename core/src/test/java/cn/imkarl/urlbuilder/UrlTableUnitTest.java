@@ -0,0 +1,151 @@
+package cn.imkarl.urlbuilder;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * UrlTable单元测试
+ */
+public class UrlTableUnitTest {
+    private static final String TAG = "UrlTable";
+
+    private static void log(Object msg) {
+        System.out.println(TAG+": "+(msg==null ? "[NULL]" : String.valueOf(msg)));
+    }
+
+
+    @Test
+    public void testRow() throws Exception {
+        UrlTable table = new UrlTable();
+        UrlBuilder url = new UrlBuilder().scheme("https").userInfo("user:pass").host("www.baidu.com").port(8090)
+                .appendPath("s").appendPath("测试😀").appendQuery("wd", "测试").appendQuery("wd", "+&=").fragment("a b");
+        url.getPath().endTag(true);
+        table.add(url);
+        table.add(new UrlBuilder().host("www.baidu.com").query(new UrlQuery()));
+
+        log("------------ testRow ------------");
+        UrlTable.Row row = table.row(0);
+        log(row);
+        assertTrue(row.build().equals(url.build()));
+        assertTrue("https".equals(row.getScheme()));
+        assertTrue("user:pass".equals(row.getUserInfo()));
+        assertTrue(row.getPort() == 8090);
+        assertTrue(row.isEndTag());
+        assertTrue(row.getSegmentCount() == 2);
+        assertTrue("测试😀".equals(row.getSegment(1)));
+        assertTrue(row.appendSegment(0, new StringBuilder("/")).toString().equals("/s"));
+        assertTrue(row.getParamCount() == 2);
+        assertTrue("wd".equals(row.getParamKey(1)));
+        assertTrue("+&=".equals(row.getParamValue(1)));
+        assertTrue("a b".equals(row.getFragment()));
+
+        String host = row.getHost();
+        row.moveTo(1);
+        // 字典中的同一个实例
+        assertTrue(row.getHost() == host);
+        assertTrue(row.getScheme() == null && row.getUserInfo() == null && row.getFragment() == null);
+        assertTrue(!row.hasPath() && row.hasQuery() && row.getParamCount() == 0);
+        assertTrue(row.build().equals("http://www.baidu.com/"));
+
+        try {
+            row.moveTo(2);
+            assertTrue(false);
+        } catch (IndexOutOfBoundsException e) {
+            // 越界
+        }
+    }
+
+    @Test
+    public void testRandom() throws Exception {
+        List<UrlBuilder> urls = randomUrls(new Random(11), 20000);
+        UrlTable table = new UrlTable(UrlTable.DIRECT, 16);
+        for (UrlBuilder url : urls) {
+            table.add(url);
+        }
+        assertTrue(table.size() == urls.size());
+
+        UrlTable.Row row = table.row();
+        StringBuilder out = new StringBuilder();
+        long stringSize = 0;
+        for (int i = 0; i < urls.size(); i++) {
+            UrlBuilder url = urls.get(i);
+            String expected = url.build();
+            stringSize += expected.length();
+            out.setLength(0);
+            assertTrue(row.moveTo(i).buildTo(out).toString().equals(expected));
+            assertTrue(table.get(i).build().equals(expected));
+        }
+
+        log("------------ testRandom ------------");
+        log(urls.size()+" urls\t=>\t"+table.getByteSize()+" bytes off-heap\t("+stringSize+" chars as strings)");
+    }
+
+    @Test
+    public void testCapacityOverflow() throws Exception {
+        log("------------ testCapacityOverflow ------------");
+        // 40000000 * 64 超出int，不能静默溢出为负数或很小的容量
+        try {
+            new UrlTable(UrlTable.DIRECT, 40000000);
+            assertTrue(false);
+        } catch (IllegalArgumentException e) {
+            log(e.getMessage());
+        }
+    }
+
+    @Test
+    public void testMapped() throws Exception {
+        File directory = new File(System.getProperty("java.io.tmpdir"));
+        List<UrlBuilder> urls = randomUrls(new Random(13), 5000);
+        UrlTable table = new UrlTable(UrlTable.mapped(directory), 100);
+        for (UrlBuilder url : urls) {
+            table.add(url);
+        }
+        UrlTable.Row row = table.row();
+        for (int i = 0; i < urls.size(); i++) {
+            assertTrue(row.moveTo(i).build().equals(urls.get(i).build()));
+        }
+        log("------------ testMapped ------------");
+        log(urls.size()+" urls\t=>\t"+table.getByteSize()+" bytes mapped");
+    }
+
+
+    private static List<UrlBuilder> randomUrls(Random random, int count) {
+        final String[] schemes = {null, "http", "https", "ftp", "custom"};
+        final String[] hosts = {"www.baidu.com", "api.example.com", "测试.example.cn", "other.org"};
+        final String[] keys = {"utm_source", "utm_medium", "page", "size", "关键字", "q"};
+        final String[] words = {"index", "users", "订单", "a b", "~!*'()", "😀", "x%2Fy", "v2", " "};
+
+        List<UrlBuilder> urls = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            UrlBuilder url = new UrlBuilder().scheme(schemes[random.nextInt(schemes.length)])
+                    .host(hosts[random.nextInt(hosts.length)]);
+            if (random.nextInt(4) == 0) {
+                url.port(random.nextInt(65536));
+            }
+            if (random.nextInt(10) == 0) {
+                url.userInfo(words[random.nextInt(words.length)]);
+            }
+            for (int n = random.nextInt(5); n > 0; n--) {
+                url.appendPath(words[random.nextInt(words.length)]);
+            }
+            if (url.getPath() != null) {
+                url.getPath().endTag(random.nextBoolean());
+            }
+            for (int n = random.nextInt(8); n > 0; n--) {
+                url.appendQuery(keys[random.nextInt(keys.length)], words[random.nextInt(words.length)] + random.nextInt(1000));
+            }
+            if (random.nextInt(3) == 0) {
+                url.fragment(words[random.nextInt(words.length)]);
+            }
+            urls.add(url);
+        }
+        return urls;
+    }
+
+}
@@ -0,0 +1,66 @@
+package cn.imkarl.urlbuilder;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * UrlTemplate单元测试
+ */
+public class UrlTemplateUnitTest {
+    private static final String TAG = "UrlTemplate";
+
+    private static void log(Object msg) {
+        System.out.println(TAG+": "+(msg==null ? "[NULL]" : String.valueOf(msg)));
+    }
+
+
+    @Test
+    public void testExpand() throws Exception {
+        final String url = "https://api.example.com/v2/users/%E6%B5%8B%E8%AF%95/orders?page=1&size=20";
+        UrlTemplate template = UrlTemplate.compile("https://api.example.com/v2/users/{id}/orders?page={p}&size={s}");
+        String buildUrl = template.expand("测试", 1, 20);
+
+        log("------------ testExpand ------------");
+        log("template=\t"+template);
+        log("original=\t"+url);
+        log("buildUrl=\t"+buildUrl);
+        assertTrue(url.equals(buildUrl));
+        assertTrue(template.getVariableNames().size() == 3);
+    }
+
+    @Test
+    public void testExpandByName() throws Exception {
+        final String url = "https://api.example.com/v2/users/7/orders?page=a+b&size=a+b";
+        UrlTemplate template = UrlTemplate.compile("https://api.example.com/v2/users/{id}/orders?page={p}&size={p}");
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", 7);
+        values.put("p", "a b");
+        String buildUrl = template.expand(values);
+
+        log("------------ testExpandByName ------------");
+        log("original=\t"+url);
+        log("buildUrl=\t"+buildUrl);
+        assertTrue(url.equals(buildUrl));
+    }
+
+    @Test
+    public void testPrototype() throws Exception {
+        UrlBuilder prototype = new UrlBuilder().scheme("https").host("www.baidu.com").appendPath("/s")
+                .appendPath("{id}").appendQuery("ie", "UTF-8").appendQuery("wd", "{wd}");
+        UrlTemplate template = UrlTemplate.compile(prototype);
+        String buildUrl = template.expand("测试", "测试");
+        String url = new UrlBuilder().scheme("https").host("www.baidu.com").appendPath("/s")
+                .appendPath("测试").appendQuery("ie", "UTF-8").appendQuery("wd", "测试").build();
+
+        log("------------ testPrototype ------------");
+        log("template=\t"+template);
+        log("original=\t"+url);
+        log("buildUrl=\t"+buildUrl);
+        assertTrue(url.equals(buildUrl));
+    }
+
+}
@@ -0,0 +1,158 @@
+package cn.imkarl.urlbuilder;
+
+import org.junit.Test;
+
+import java.nio.charset.Charset;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * UrlTokenizer单元测试
+ */
+public class UrlTokenizerUnitTest {
+    private static final String TAG = "UrlTokenizer";
+
+    private static void log(Object msg) {
+        System.out.println(TAG+": "+(msg==null ? "[NULL]" : String.valueOf(msg)));
+    }
+
+    /**
+     * 按回调顺序记录每个组成部分，byte[]按ISO-8859-1还原后记录
+     */
+    private static class Recorder extends UrlTokenizer.Visitor {
+        final StringBuilder events = new StringBuilder();
+        final CharSequence url;
+
+        Recorder(CharSequence url) {
+            this.url = url;
+        }
+
+        private void event(String name, int start, int end) {
+            events.append(name).append('[').append(url, start, end).append(']');
+        }
+
+        @Override
+        public void scheme(int start, int end) {
+            event("scheme", start, end);
+        }
+        @Override
+        public void userInfo(int start, int end) {
+            event("userInfo", start, end);
+        }
+        @Override
+        public void host(int start, int end) {
+            event("host", start, end);
+        }
+        @Override
+        public void port(int start, int end) {
+            event("port", start, end);
+        }
+        @Override
+        public boolean path(int start, int end) {
+            event("path", start, end);
+            return true;
+        }
+        @Override
+        public void segment(int start, int end) {
+            event("segment", start, end);
+        }
+        @Override
+        public boolean query(int start, int end) {
+            event("query", start, end);
+            return true;
+        }
+        @Override
+        public void param(int keyStart, int keyEnd, int valueStart, int valueEnd) {
+            event("key", keyStart, keyEnd);
+            if (valueStart != -1) {
+                event("value", valueStart, valueEnd);
+            }
+        }
+        @Override
+        public void fragment(int start, int end) {
+            event("fragment", start, end);
+        }
+    }
+
+    private static String tokenize(String url) {
+        Recorder recorder = new Recorder(url);
+        UrlTokenizer.tokenize(url, recorder);
+        return recorder.events.toString();
+    }
+
+    @Test
+    public void testTokenize() throws Exception {
+        String events = tokenize(" https://user:pw@[::1]:8080/a//b%2F/?x=1&&flag&=v&y=a=b#frag ");
+
+        log("------------ testTokenize ------------");
+        log(events);
+        assertTrue(("scheme[https]userInfo[user:pw]host[[::1]]port[8080]"
+                + "path[/a//b%2F/]segment[a]segment[b%2F]"
+                + "query[x=1&&flag&=v&y=a=b]key[x]value[1]key[flag]key[]value[v]key[y]value[a=b]"
+                + "fragment[frag]").equals(events));
+
+        assertTrue("path[]".equals(tokenize("")));
+        assertTrue("path[relative/x]segment[relative]segment[x]".equals(tokenize("relative/x")));
+        assertTrue("scheme[mailto]path[a@b.com]segment[a@b.com]".equals(tokenize("mailto:a@b.com")));
+        assertTrue("host[h]port[]path[]query[]fragment[]".equals(tokenize("//h:?#")));
+        assertTrue("path[/p]segment[p]fragment[a?b=c]".equals(tokenize("/p#a?b=c")));
+    }
+
+    @Test
+    public void testSkip() throws Exception {
+        final String url = "http://www.baidu.com/s/a/b?wd=test&ie=UTF-8#top";
+        final int[] counts = new int[2];
+        final StringBuilder host = new StringBuilder();
+        UrlTokenizer.tokenize(url, new UrlTokenizer.Visitor() {
+            @Override
+            public void host(int start, int end) {
+                host.append(url, start, end);
+            }
+            @Override
+            public boolean path(int start, int end) {
+                return false;
+            }
+            @Override
+            public void segment(int start, int end) {
+                counts[0]++;
+            }
+            @Override
+            public void param(int keyStart, int keyEnd, int valueStart, int valueEnd) {
+                counts[1]++;
+            }
+        });
+
+        log("------------ testSkip ------------");
+        log("host=\t"+host+", segments="+counts[0]+", params="+counts[1]);
+        assertTrue("www.baidu.com".equals(host.toString()));
+        assertTrue(counts[0] == 0 && counts[1] == 2);
+    }
+
+    @Test
+    public void testBytes() throws Exception {
+        Charset utf8 = Charset.forName("UTF-8");
+        Charset latin1 = Charset.forName("ISO-8859-1");
+        final String[] pieces = {"http", "://", ":", "@", "/", "?", "#", "&", "=", "[", "]", "测试", "a", "%2F", " ", "8080"};
+        Random random = new Random(2017);
+
+        for (int n = 0; n < 2000; n++) {
+            StringBuilder builder = new StringBuilder();
+            for (int i = random.nextInt(16); i > 0; i--) {
+                builder.append(pieces[random.nextInt(pieces.length)]);
+            }
+            String url = builder.toString();
+            byte[] bytes = ("<<" + url + ">>").getBytes(utf8);
+
+            // 字节按单字节还原后，回调的内容应与直接切分UTF-8字节对应的字符串一致
+            String expected = tokenize(new String(url.getBytes(utf8), latin1));
+            Recorder recorder = new Recorder(new String(bytes, latin1));
+            UrlTokenizer.tokenize(bytes, 2, bytes.length - 4, recorder);
+            assertTrue(url, expected.equals(recorder.events.toString()));
+        }
+
+        log("------------ testBytes ------------");
+        log(tokenize("http://测试.com/路径?键=值"));
+    }
+
+}
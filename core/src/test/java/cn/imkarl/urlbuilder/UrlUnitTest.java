@@ -0,0 +1,156 @@
+package cn.imkarl.urlbuilder;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Url单元测试
+ */
+public class UrlUnitTest {
+    private static final String TAG = "Url";
+
+    private static void log(Object msg) {
+        System.out.println(TAG+": "+(msg==null ? "[NULL]" : String.valueOf(msg)));
+    }
+
+
+    @Test
+    public void testFreeze() throws Exception {
+        UrlBuilder urlBuilder = new UrlBuilder().scheme("https").host("www.baidu.com").appendPath("/s")
+                .appendQuery("ie", "UTF-8").appendQuery("wd", "测试").fragment("abc");
+        Url url = urlBuilder.freeze();
+        String original = urlBuilder.build();
+        urlBuilder.putQuery("wd", "test").appendPath("x");
+
+        log("------------ testFreeze ------------");
+        log("original=\t"+original);
+        log("frozen=\t"+url);
+        assertTrue(original.equals(url.build()));
+        assertTrue(original.equals(url.toBuilder().build()));
+    }
+
+    @Test
+    public void testDerive() throws Exception {
+        Url base = new UrlBuilder().scheme("https").host("www.baidu.com").appendPath("/s")
+                .appendQuery("ie", "UTF-8").appendQuery("page", "1").appendQuery("abc", "one").freeze();
+
+        for (int page = 2; page < 5; page++) {
+            Url derived = base.resolveSegment("测试").withQuery("page", String.valueOf(page)).withAppendedQuery("abc", "two");
+            String expected = new UrlBuilder().scheme("https").host("www.baidu.com").appendPath("/s").appendPath("测试")
+                    .appendQuery("ie", "UTF-8").appendQuery("page", "1").appendQuery("abc", "one")
+                    .putQuery("page", String.valueOf(page)).appendQuery("abc", "two").build();
+
+            log("------------ testDerive ------------");
+            log("original=\t"+expected);
+            log("derived=\t"+derived);
+            assertTrue(expected.equals(derived.build()));
+        }
+        assertTrue("https://www.baidu.com/s?ie=UTF-8&page=1&abc=one".equals(base.build()));
+        assertTrue(base.withQuery("wd", "test").withFragment("#top").build().equals(
+                "https://www.baidu.com/s?ie=UTF-8&page=1&abc=one&wd=test#top"));
+    }
+
+    @Test
+    public void testDeriveChain() throws Exception {
+        Url base = new UrlBuilder().host("www.baidu.com").appendPath("a").appendQuery("k", "0").appendQuery("x", "1").freeze();
+
+        log("------------ testDeriveChain ------------");
+        // 连续派生，每次只编码新增的部分
+        Url derived = base;
+        UrlBuilder expected = base.toBuilder();
+        for (int i = 0; i < 2000; i++) {
+            derived = derived.resolveSegment("s" + i).withAppendedQuery("q", "v " + i);
+            expected.appendPath("s" + i).appendQuery("q", "v " + i);
+        }
+        assertTrue(expected.build().equals(derived.build()));
+
+        // 反复替换同一个KEY，不保留被替换的参数
+        Url replaced = base;
+        for (int i = 0; i < 1000; i++) {
+            replaced = replaced.withQuery("k", String.valueOf(i));
+        }
+        log(replaced);
+        assertTrue("http://www.baidu.com/a?x=1&k=999".equals(replaced.build()));
+        assertTrue(replaced.getParams().size() == 2);
+        assertTrue("http://www.baidu.com/a?x=1&k=999&k=a+b".equals(replaced.withAppendedQuery("k", "a b").build()));
+    }
+
+    @Test
+    public void testDeriveWithoutReencoding() throws Exception {
+        UrlBuilder builder = new UrlBuilder().host("www.baidu.com").appendPath("s").appendQuery("page", "1");
+        for (int i = 0; i < 50; i++) {
+            builder.appendQuery("k" + i, "测试" + i);
+        }
+        Url base = builder.freeze();
+        String encodedBase = base.build();
+
+        // 通过缓存的计数统计编码次数：每次派生只应编码新增的KEY和VALUE
+        EncodeCache cache = new EncodeCache(1024);
+        PercentCodec.setCache(cache);
+        try {
+            final int count = 10000;
+            for (int i = 0; i < count; i++) {
+                Url derived = base.withQuery("page", String.valueOf(i));
+                String url = derived.build();
+                if (i == 0 || i == count - 1) {
+                    log(url);
+                }
+                assertTrue(url.equals(encodedBase.replace("?page=1&", "?") + "&page=" + i));
+            }
+
+            log("------------ testDeriveWithoutReencoding ------------");
+            log("cache=\t"+cache);
+            assertTrue(cache.getHitCount() + cache.getMissCount() <= count * 2);
+        } finally {
+            PercentCodec.setCache(null);
+        }
+
+        // 冻结之后重复替换同一个KEY，只保留最后一个
+        Url replaced = base.withQuery("page", "2").withAppendedQuery("page", "3").withQuery("page", "4");
+        assertTrue(replaced.getParams().size() == 51);
+        assertTrue(replaced.build().endsWith("&page=4") && !replaced.build().contains("page=2"));
+        assertTrue(replaced.toBuilder().build().equals(replaced.build()));
+    }
+
+    @Test
+    public void testFreezeVerbatim() throws Exception {
+        UrlBuilder urlBuilder = UrlBuilder.parse("http://h/p").appendEncodedPath("a%20b~c")
+                .appendEncodedQuery("sig", "a%20b~c").appendQuery("wd", "a b").encodedFragment("x%20y");
+        String expected = urlBuilder.build();
+        Url url = urlBuilder.freeze();
+
+        log("------------ testFreezeVerbatim ------------");
+        log("expected=\t"+expected);
+        log("frozen=\t"+url);
+        assertTrue("http://h/p/a%20b~c?sig=a%20b~c&wd=a+b#x%20y".equals(expected));
+        assertTrue(expected.equals(url.build()));
+        assertTrue(expected.equals(url.toBuilder().build()));
+        assertTrue(expected.equals(url.toBuilder().freeze().build()));
+        assertTrue("a b~c".equals(url.getSegments().get(1)));
+        assertTrue("a b~c".equals(url.getParams().get(0).getValue()));
+        assertTrue("x y".equals(url.getFragment()));
+
+        // 派生时保留已编码的部分，替换之后按普通内容编码
+        Url derived = url.resolveSegment("d e").withAppendedQuery("n", "1");
+        assertTrue("http://h/p/a%20b~c/d+e?sig=a%20b~c&wd=a+b&n=1#x%20y".equals(derived.build()));
+        assertTrue(derived.build().equals(derived.toBuilder().build()));
+        assertTrue("http://h/p/a%20b~c?wd=a+b&sig=a+b%7Ec#x+y".equals(url.withQuery("sig", "a b~c").withFragment("x y").build()));
+    }
+
+    @Test
+    public void testEqualsWithoutHost() throws Exception {
+        Url empty = new UrlBuilder().appendPath("a").freeze();
+
+        log("------------ testEqualsWithoutHost ------------");
+        assertTrue(empty.equals(new UrlBuilder().appendPath("a").freeze()));
+        assertTrue(empty.hashCode() == new UrlBuilder().appendPath("a").freeze().hashCode());
+        assertTrue(!empty.equals(empty.withHost("www.baidu.com")));
+        try {
+            empty.build();
+            assertTrue(false);
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+}
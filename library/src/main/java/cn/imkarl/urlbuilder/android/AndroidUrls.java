@@ -0,0 +1,41 @@
+package cn.imkarl.urlbuilder.android;
+
+import android.net.Uri;
+
+import java.util.List;
+import java.util.Set;
+
+import cn.imkarl.urlbuilder.UrlBuilder;
+import cn.imkarl.urlbuilder.UrlPath;
+import cn.imkarl.urlbuilder.UrlQuery;
+
+/**
+ * UrlBuilder 与 android.net.Uri 之间的转换
+ * @version imkarl 2017-04
+ */
+public final class AndroidUrls {
+
+    private AndroidUrls() {
+    }
+
+    /**
+     * 由{@link UrlBuilder#toURIString()}创建，Uri.parse只保存字符串，各部分在访问时才解析
+     */
+    public static Uri toUri(UrlBuilder url) {
+        return Uri.parse(url.toURIString());
+    }
+
+    public static UrlBuilder from(Uri uri) {
+        UrlQuery query = new UrlQuery();
+        Set<String> queryKeys = uri.getQueryParameterNames();
+        for (String queryKey : queryKeys) {
+            List<String> queryValues = uri.getQueryParameters(queryKey);
+            for (String queryValue : queryValues) {
+                query.append(queryKey, queryValue);
+            }
+        }
+        return UrlBuilder.from(uri.getScheme(), uri.getHost(), uri.getPort(), UrlPath.parse(uri.getPath()), query, uri.getFragment())
+                .userInfo(uri.getUserInfo());
+    }
+
+}